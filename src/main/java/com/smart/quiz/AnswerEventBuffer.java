@@ -0,0 +1,98 @@
+package com.smart.quiz;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ko‘p yozuvchi / bitta o‘quvchi halqa bufer. Maydonlar oldindan ajratilgan primitiv massivlarda turadi,
+// shuning uchun publish() obyekt yaratmaydi va hech qachon kutmaydi: bufer to‘la bo‘lsa hodisa tashlab yuboriladi.
+// Har bir katakning published[] qiymati unga yozilgan ketma-ketlik raqami; o‘quvchi shu orqali tayyor kataklarni ko‘radi.
+public class AnswerEventBuffer {
+
+  public interface Sink {
+
+    void accept(long userId, long subjectId, long questionId, int selectedOption, boolean correct, int latencyMs,
+        long answeredAtMillis);
+  }
+
+  private final int mask;
+  private final long[] userIds;
+  private final long[] subjectIds;
+  private final long[] questionIds;
+  private final int[] selectedOptions;
+  private final boolean[] correct;
+  private final int[] latencies;
+  private final long[] answeredAt;
+  private final AtomicLongArray published;
+
+  private final AtomicLong head = new AtomicLong(); // keyingi bo‘sh ketma-ketlik (yozuvchilar)
+  private volatile long tail; // keyingi o‘qiladigan ketma-ketlik (faqat o‘quvchi o‘zgartiradi)
+  private final AtomicLong dropped = new AtomicLong();
+
+  public AnswerEventBuffer(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Bufer hajmi 2 ning darajasi bo‘lishi kerak: " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.userIds = new long[capacity];
+    this.subjectIds = new long[capacity];
+    this.questionIds = new long[capacity];
+    this.selectedOptions = new int[capacity];
+    this.correct = new boolean[capacity];
+    this.latencies = new int[capacity];
+    this.answeredAt = new long[capacity];
+    this.published = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      published.set(i, -1);
+    }
+  }
+
+  public boolean publish(long userId, long subjectId, long questionId, int selectedOption, boolean isCorrect,
+      int latencyMs, long answeredAtMillis) {
+    long sequence;
+    do {
+      sequence = head.get();
+      if (sequence - tail > mask) {
+        dropped.incrementAndGet();
+        return false;
+      }
+    } while (!head.compareAndSet(sequence, sequence + 1));
+
+    int index = (int) (sequence & mask);
+    userIds[index] = userId;
+    subjectIds[index] = subjectId;
+    questionIds[index] = questionId;
+    selectedOptions[index] = selectedOption;
+    correct[index] = isCorrect;
+    latencies[index] = latencyMs;
+    answeredAt[index] = answeredAtMillis;
+    published.setRelease(index, sequence);
+    return true;
+  }
+
+  // Faqat bitta oqimdan chaqiriladi. Ketma-ket tayyor bo‘lgan hodisalarni (ko‘pi bilan max ta) sink'ga beradi
+  public int drainTo(Sink sink, int max) {
+    long next = tail;
+    int count = 0;
+    while (count < max) {
+      int index = (int) (next & mask);
+      if (published.getAcquire(index) != next) {
+        break; // hali yozilmagan (yoki yozuvchi katakni to‘ldirayapti)
+      }
+      sink.accept(userIds[index], subjectIds[index], questionIds[index], selectedOptions[index], correct[index],
+          latencies[index], answeredAt[index]);
+      next++;
+      count++;
+    }
+    tail = next;
+    return count;
+  }
+
+  public int size() {
+    return (int) (head.get() - tail);
+  }
+
+  public long droppedCount() {
+    return dropped.get();
+  }
+
+}
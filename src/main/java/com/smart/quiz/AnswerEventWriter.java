@@ -0,0 +1,82 @@
+package com.smart.quiz;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Har bir poll javobi AnswerEventBuffer'ga yoziladi; fon oqimi ularni answer_events jadvaliga batch bilan qo‘shadi.
+// Javob berish yo‘li faqat record() ni chaqiradi: obyekt yaratilmaydi, I/O kutilmaydi.
+@Slf4j
+@Component
+public class AnswerEventWriter {
+
+  private static final String INSERT = """
+      insert into answer_events (user_id, subject_id, question_id, selected_option, correct, latency_ms, answered_at)
+      values (?, ?, ?, ?, ?, ?, ?)
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final AnswerEventBuffer buffer;
+  private final int batchSize;
+  private final ScheduledExecutorService drainer;
+
+  public AnswerEventWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+      @Value("${quiz.answers.buffer-size:65536}") int bufferSize,
+      @Value("${quiz.answers.batch-size:1000}") int batchSize,
+      @Value("${quiz.answers.flush-interval-ms:200}") long flushIntervalMs) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.buffer = new AnswerEventBuffer(bufferSize);
+    this.batchSize = batchSize;
+    Gauge.builder("quiz.answers.pending", buffer, AnswerEventBuffer::size)
+        .description("Bazaga yozilishini kutayotgan javob hodisalari")
+        .register(meterRegistry);
+    FunctionCounter.builder("quiz.answers.dropped", buffer, AnswerEventBuffer::droppedCount)
+        .description("Bufer to‘lgani uchun tashlab yuborilgan javob hodisalari")
+        .register(meterRegistry);
+    this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "answer-event-writer"));
+    this.drainer.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public void record(long userId, long subjectId, long questionId, int selectedOption, boolean correct,
+      int latencyMs) {
+    buffer.publish(userId, subjectId, questionId, selectedOption, correct, latencyMs, System.currentTimeMillis());
+  }
+
+  // Drainer oqimida. Bufer bo‘shaguncha batch'lab yoziladi
+  void drain() {
+    List<Object[]> rows = new ArrayList<>(batchSize);
+    AnswerEventBuffer.Sink sink = (userId, subjectId, questionId, selectedOption, correct, latencyMs, answeredAt) ->
+        rows.add(new Object[]{userId, subjectId, questionId, selectedOption, correct, latencyMs,
+            new Timestamp(answeredAt)});
+    while (buffer.drainTo(sink, batchSize) > 0) {
+      try {
+        jdbcTemplate.batchUpdate(INSERT, rows);
+      } catch (RuntimeException e) {
+        // Hodisalar bufer'dan allaqachon olingan; statistika uchun yo‘qotish qabul qilinadi
+        log.error("Javob hodisalarini saqlab bo‘lmadi ({} ta): {}", rows.size(), e.getMessage());
+      }
+      rows.clear();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    drainer.shutdown();
+    // Bufer faqat bitta o‘quvchiga mo‘ljallangan
+    if (drainer.awaitTermination(10, TimeUnit.SECONDS)) {
+      drain();
+    }
+  }
+
+}
@@ -0,0 +1,239 @@
+package com.smart.quiz;
+
+import com.smart.quiz.exception.InvalidFileFormatException;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// DOCX ichidagi word/document.xml ni bir marta, oqim sifatida (StAX) o‘qiydi.
+// Butun hujjat xotiraga yuklanmaydi: har bir paragraf tayyor bo‘lishi bilan sink'ga uzatiladi.
+public final class DocxParagraphReader {
+
+  private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+  private static final String DOCUMENT_ENTRY = "word/document.xml";
+  private static final byte[] ZIP_MAGIC = {0x50, 0x4B, 0x03, 0x04};
+
+  // Zip-bomb himoyasi
+  static final long MAX_DOCUMENT_XML_BYTES = 64L * 1024 * 1024;
+  static final long MAX_TOTAL_UNCOMPRESSED_BYTES = 128L * 1024 * 1024;
+  static final int MAX_ENTRIES = 1_000;
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private DocxParagraphReader() {
+  }
+
+  public static void read(InputStream source, Consumer<String> paragraphSink) throws IOException {
+    BufferedInputStream input = new BufferedInputStream(source, 64 * 1024);
+    checkMagicNumber(input);
+
+    ZipInputStream zip = new ZipInputStream(input);
+    SizeLimitedInputStream limited = new SizeLimitedInputStream(zip, MAX_TOTAL_UNCOMPRESSED_BYTES);
+    boolean documentFound = false;
+    int entries = 0;
+
+    try {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        if (++entries > MAX_ENTRIES) {
+          throw invalid("DOCX faylda juda ko‘p ichki fayllar bor");
+        }
+        if (DOCUMENT_ENTRY.equals(entry.getName())) {
+          documentFound = true;
+          limited.startEntry(MAX_DOCUMENT_XML_BYTES);
+          readDocumentXml(limited, paragraphSink);
+        } else {
+          // Boshqa fayllar o‘tkazib yuboriladi, lekin hajmi baribir hisoblanadi
+          limited.startEntry(MAX_TOTAL_UNCOMPRESSED_BYTES);
+          limited.skipAll();
+        }
+        zip.closeEntry();
+      }
+    } catch (ZipException e) {
+      throw invalid("Xato tafsiloti: " + e.getMessage());
+    }
+
+    if (!documentFound) {
+      throw invalid("DOCX faylda word/document.xml topilmadi");
+    }
+  }
+
+  private static void checkMagicNumber(BufferedInputStream input) throws IOException {
+    input.mark(ZIP_MAGIC.length);
+    byte[] header = input.readNBytes(ZIP_MAGIC.length);
+    input.reset();
+    if (!Arrays.equals(header, ZIP_MAGIC)) {
+      throw new InvalidFileFormatException(
+          "Fayl tarkibi noto'g'ri",
+          List.of(
+              "Fayl .docx formatida emas yoki buzilgan",
+              "Haqiqiy .docx fayl yuboring"
+          )
+      );
+    }
+  }
+
+  private static void readDocumentXml(InputStream xml, Consumer<String> paragraphSink) throws IOException {
+    XMLStreamReader reader = null;
+    try {
+      reader = XML_INPUT_FACTORY.createXMLStreamReader(xml, "UTF-8");
+      StringBuilder text = new StringBuilder(256);
+      int depth = 0;
+      int bodyDepth = -1;        // w:body chuqurligi
+      int paragraphDepth = -1;   // w:body ning bevosita farzandi bo‘lgan w:p
+      int textBoxDepth = -1;     // w:txbxContent ichidagi matn XWPF'da ham paragrafga qo‘shilmaydi
+      boolean inText = false;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (!WORD_NS.equals(reader.getNamespaceURI())) {
+            continue;
+          }
+          String name = reader.getLocalName();
+          if (bodyDepth < 0 && "body".equals(name)) {
+            bodyDepth = depth;
+          } else if (paragraphDepth < 0 && "p".equals(name) && depth == bodyDepth + 1) {
+            paragraphDepth = depth;
+            text.setLength(0);
+          } else if (paragraphDepth > 0 && textBoxDepth < 0) {
+            switch (name) {
+              case "txbxContent" -> textBoxDepth = depth;
+              case "t" -> inText = true;
+              case "tab" -> text.append('\t');
+              case "br", "cr" -> text.append('\n');
+              default -> {
+              }
+            }
+          }
+        } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+          if (inText) {
+            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == textBoxDepth) {
+            textBoxDepth = -1;
+          } else if (depth == paragraphDepth) {
+            paragraphDepth = -1;
+            String paragraph = text.toString().trim();
+            if (!paragraph.isEmpty()) {
+              paragraphSink.accept(paragraph);
+            }
+          } else if (depth == bodyDepth) {
+            bodyDepth = -2; // Body tugadi
+          }
+          inText = false;
+          depth--;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw invalid("Xato tafsiloti: " + e.getMessage());
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException ignored) {
+          // Oqim ZipInputStream tomonidan yopiladi
+        }
+      }
+    }
+  }
+
+  private static InvalidFileFormatException invalid(String detail) {
+    return new InvalidFileFormatException(
+        "DOCX faylni o'qib bo'lmadi",
+        List.of(
+            "Fayl buzilgan yoki parol bilan himoyalangan bo'lishi mumkin",
+            detail
+        )
+    );
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    return factory;
+  }
+
+  // Ochilgan (inflate qilingan) baytlarni sanaydi va chegaradan oshsa to‘xtatadi
+  private static final class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long totalLimit;
+    private long total;
+    private long entryLimit;
+    private long entry;
+
+    private SizeLimitedInputStream(InputStream in, long totalLimit) {
+      super(in);
+      this.totalLimit = totalLimit;
+    }
+
+    private void startEntry(long limit) {
+      this.entryLimit = limit;
+      this.entry = 0;
+    }
+
+    private void skipAll() throws IOException {
+      byte[] buffer = new byte[8192];
+      while (read(buffer, 0, buffer.length) != -1) {
+        // faqat hajmni hisoblash uchun
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count(skipped);
+      return skipped;
+    }
+
+    // XML reader yopilganda ZipInputStream yopilib qolmasligi kerak
+    @Override
+    public void close() {
+    }
+
+    private void count(long n) {
+      entry += n;
+      total += n;
+      if (entry > entryLimit || total > totalLimit) {
+        throw new InvalidFileFormatException(
+            "Fayl hajmi juda katta",
+            List.of("DOCX fayl ichidagi ma'lumotlar ruxsat etilgan hajmdan oshib ketdi")
+        );
+      }
+    }
+  }
+
+}
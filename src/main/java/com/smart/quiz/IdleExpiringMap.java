@@ -0,0 +1,309 @@
+package com.smart.quiz;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+// Foydalanilmay qolgan yozuvlarni o‘chiradigan map. Muddat vaqt g‘ildiragi (hashed timer wheel) bilan kuzatiladi:
+// har tickda faqat bitta katak ko‘riladi, butun map skan qilinmaydi. get() faqat oxirgi murojaat vaqtini yangilaydi,
+// yozuv katakka qaytadan ko‘chirilishi g‘ildirak unga yetib kelganda bajariladi.
+// Kataklar ikki tomonlama bog‘langan ro‘yxat: remove() yozuvni g‘ildirakdan darhol uzadi.
+@Slf4j
+public class IdleExpiringMap<K, V> implements AutoCloseable {
+
+  static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final String name;
+  private final long idleNanos;
+  private final long tickNanos;
+  private final int maxSize;
+  private final EvictionListener<K, V> evictionListener;
+  private final LongSupplier clock;
+
+  private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+  private final LongAdder evictions = new LongAdder();
+
+  // G‘ildirak faqat lock ostida o‘zgaradi; get() lock olmaydi
+  private final ReentrantLock lock = new ReentrantLock();
+  // Har bir katak - halqasimon ro‘yxatning bosh (sentinel) elementi
+  private final Entry<K, V>[] wheel;
+  private final long startNanos;
+  private long currentTick;
+
+  private final ScheduledExecutorService ticker;
+
+  // Muddat o‘tgani (EXPIRED) yoki hajm chegarasi (SIZE) sababli o‘chirildi
+  public enum Cause { EXPIRED, SIZE }
+
+  @FunctionalInterface
+  public interface EvictionListener<K, V> {
+
+    void onEviction(K key, V value, Cause cause);
+  }
+
+  public IdleExpiringMap(String name, Duration idleTimeout, int maxSize, BiConsumer<K, V> evictionListener) {
+    this(name, idleTimeout, maxSize, (key, value, cause) -> evictionListener.accept(key, value));
+  }
+
+  public IdleExpiringMap(String name, Duration idleTimeout, int maxSize, EvictionListener<K, V> evictionListener) {
+    this(name, idleTimeout, maxSize, evictionListener, System::nanoTime, true);
+  }
+
+  @SuppressWarnings("unchecked")
+  IdleExpiringMap(String name, Duration idleTimeout, int maxSize, EvictionListener<K, V> evictionListener,
+      LongSupplier clock, boolean startTicker) {
+    this.name = name;
+    this.idleNanos = idleTimeout.toNanos();
+    this.tickNanos = Math.max(idleNanos / WHEEL_SIZE, MIN_TICK_NANOS);
+    this.maxSize = maxSize;
+    this.evictionListener = evictionListener;
+    this.clock = clock;
+    this.startNanos = clock.getAsLong();
+    this.wheel = new Entry[WHEEL_SIZE];
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = Entry.sentinel();
+    }
+
+    if (startTicker) {
+      this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expiry-" + name);
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.ticker.scheduleWithFixedDelay(() -> expire(clock.getAsLong()), tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    } else {
+      this.ticker = null;
+    }
+  }
+
+  public V get(K key) {
+    Entry<K, V> entry = map.get(key);
+    if (entry == null) {
+      return null;
+    }
+    entry.lastAccessNanos = clock.getAsLong();
+    return entry.value;
+  }
+
+  // Murojaat vaqtini yangilamasdan o‘qish (fon oqimlari uchun)
+  public V peek(K key) {
+    Entry<K, V> entry = map.get(key);
+    return entry != null ? entry.value : null;
+  }
+
+  public boolean containsKey(K key) {
+    return get(key) != null;
+  }
+
+  public V put(K key, V value) {
+    Entry<K, V> entry = new Entry<>(key, value, clock.getAsLong());
+    Entry<K, V> previous = map.put(key, entry);
+    schedule(entry, previous);
+    return previous != null ? previous.value : null;
+  }
+
+  public V putIfAbsent(K key, V value) {
+    Entry<K, V> entry = new Entry<>(key, value, clock.getAsLong());
+    Entry<K, V> existing = map.putIfAbsent(key, entry);
+    if (existing != null) {
+      existing.lastAccessNanos = entry.lastAccessNanos;
+      return existing.value;
+    }
+    schedule(entry, null);
+    return null;
+  }
+
+  public V remove(K key) {
+    Entry<K, V> entry = map.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    lock.lock();
+    try {
+      unlink(entry);
+    } finally {
+      lock.unlock();
+    }
+    return entry.value;
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("quiz.state.size", map, ConcurrentHashMap::size)
+        .tag("map", name)
+        .description("Xotiradagi faol yozuvlar soni")
+        .register(registry);
+    FunctionCounter.builder("quiz.state.evictions", evictions, LongAdder::sum)
+        .tag("map", name)
+        .description("Bo‘sh turgani yoki hajm chegarasi sababli o‘chirilgan yozuvlar")
+        .register(registry);
+  }
+
+  private void schedule(Entry<K, V> entry, Entry<K, V> replaced) {
+    lock.lock();
+    try {
+      if (replaced != null) {
+        unlink(replaced);
+      }
+      // Shu orada remove() qilingan bo‘lsa, g‘ildirakka qo‘shilmaydi
+      if (map.get(entry.key) == entry) {
+        addToWheel(entry);
+      }
+      if (map.size() > maxSize) {
+        evictOverflow();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Ticker oqimida (testlarda to‘g‘ridan-to‘g‘ri) chaqiriladi
+  void expire(long nowNanos) {
+    lock.lock();
+    try {
+      long targetTick = tickOf(nowNanos);
+      // Uzoq to‘xtalishdan keyin bir aylanadan ortig‘ini ko‘rish shart emas
+      if (targetTick - currentTick > WHEEL_SIZE) {
+        currentTick = targetTick - WHEEL_SIZE;
+      }
+      while (currentTick < targetTick) {
+        currentTick++;
+        sweep(wheel[(int) (currentTick & WHEEL_MASK)], currentTick, false, Cause.EXPIRED);
+      }
+    } catch (RuntimeException e) {
+      log.error("{}: muddati o‘tgan yozuvlarni o‘chirishda xatolik: {}", name, e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Hajm chegarasidan oshganda muddati eng yaqin yozuvlardan boshlab o‘chiriladi.
+  // Ikkinchi aylanishda katakka qaytadan ko‘chirilgan yozuvlar ham o‘chiriladi.
+  private void evictOverflow() {
+    for (int pass = 0; pass < 2 && map.size() > maxSize; pass++) {
+      for (long tick = currentTick + 1; tick <= currentTick + WHEEL_SIZE && map.size() > maxSize; tick++) {
+        sweep(wheel[(int) (tick & WHEEL_MASK)], tick, pass > 0, Cause.SIZE);
+      }
+    }
+  }
+
+  // Katakdagi yozuvlar ko‘rib chiqiladi: muddati shu tickka yetganlari (yoki force bo‘lsa barchasi) o‘chiriladi,
+  // qolganlari o‘z katagiga ko‘chiriladi. Shu katakka qaytib tushganlari bu safar qayta ko‘rilmaydi.
+  // SIZE sababida hajm chegarasiga yetganda to‘xtaydi
+  private void sweep(Entry<K, V> head, long tick, boolean force, Cause cause) {
+    Entry<K, V> last = head.prev;
+    for (Entry<K, V> entry = head.next; entry != head; ) {
+      if (cause == Cause.SIZE && map.size() <= maxSize) {
+        return;
+      }
+      Entry<K, V> next = entry.next;
+      unlink(entry);
+      if (map.get(entry.key) == entry) {
+        if (force || tickOf(entry.lastAccessNanos + idleNanos) <= tick) {
+          evict(entry, cause);
+        } else {
+          addToWheel(entry);
+        }
+      }
+      if (entry == last) {
+        return;
+      }
+      entry = next;
+    }
+  }
+
+  private void addToWheel(Entry<K, V> entry) {
+    long tick = Math.max(tickOf(entry.lastAccessNanos + idleNanos), currentTick + 1);
+    Entry<K, V> head = wheel[(int) (tick & WHEEL_MASK)];
+    entry.prev = head.prev;
+    entry.next = head;
+    head.prev.next = entry;
+    head.prev = entry;
+  }
+
+  private static <K, V> void unlink(Entry<K, V> entry) {
+    if (entry.prev != null) {
+      entry.prev.next = entry.next;
+      entry.next.prev = entry.prev;
+      entry.prev = null;
+      entry.next = null;
+    }
+  }
+
+  // Testlar uchun: g‘ildirakdagi yozuvlar soni
+  int scheduledCount() {
+    lock.lock();
+    try {
+      int count = 0;
+      for (Entry<K, V> head : wheel) {
+        for (Entry<K, V> entry = head.next; entry != head; entry = entry.next) {
+          count++;
+        }
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void evict(Entry<K, V> entry, Cause cause) {
+    if (map.remove(entry.key, entry)) {
+      evictions.increment();
+      evictionListener.onEviction(entry.key, entry.value, cause);
+    }
+  }
+
+  private long tickOf(long nanos) {
+    return (nanos - startNanos) / tickNanos;
+  }
+
+  @Override
+  public void close() {
+    if (ticker != null) {
+      ticker.shutdownNow();
+    }
+  }
+
+  private static final class Entry<K, V> {
+
+    private final K key;
+    private final V value;
+    private volatile long lastAccessNanos;
+    // G‘ildirakdagi qo‘shnilar (faqat lock ostida); g‘ildirakda bo‘lmasa null
+    private Entry<K, V> prev;
+    private Entry<K, V> next;
+
+    private Entry(K key, V value, long lastAccessNanos) {
+      this.key = key;
+      this.value = value;
+      this.lastAccessNanos = lastAccessNanos;
+    }
+
+    private static <K, V> Entry<K, V> sentinel() {
+      Entry<K, V> head = new Entry<>(null, null, 0L);
+      head.prev = head;
+      head.next = head;
+      return head;
+    }
+  }
+
+}
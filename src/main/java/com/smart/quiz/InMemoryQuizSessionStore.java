@@ -0,0 +1,54 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.QuizState;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Faqat xotirada: qayta ishga tushganda sessiyalar yo‘qoladi (quiz.session.store=memory)
+@Component
+@ConditionalOnProperty(name = "quiz.session.store", havingValue = "memory")
+public class InMemoryQuizSessionStore implements QuizSessionStore {
+
+  private final IdleExpiringMap<Long, QuizState> sessions;
+
+  public InMemoryQuizSessionStore(MeterRegistry meterRegistry,
+      @Value("${quiz.session.idle-timeout:30m}") Duration idleTimeout,
+      @Value("${quiz.session.max-size:200000}") int maxSize) {
+    this.sessions = new IdleExpiringMap<>("quiz_sessions", idleTimeout, maxSize, (chatId, state) -> { });
+    this.sessions.bindTo(meterRegistry);
+  }
+
+  @Override
+  public QuizState get(Long chatId) {
+    return sessions.get(chatId);
+  }
+
+  @Override
+  public void put(Long chatId, QuizState state) {
+    sessions.put(chatId, state);
+  }
+
+  @Override
+  public void markDirty(Long chatId) {
+  }
+
+  @Override
+  public QuizState remove(Long chatId) {
+    return sessions.remove(chatId);
+  }
+
+  @Override
+  public int size() {
+    return sessions.size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sessions.close();
+  }
+
+}
@@ -0,0 +1,256 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.QuizState;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Sessiyalar xotirada turadi, o‘zgarganlari har intervalda quiz_sessions jadvaliga bitta batch bilan yoziladi.
+// Javob berish yo‘li bazani kutmaydi; qayta ishga tushgandan keyin sessiya chatning birinchi update'ida tiklanadi.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quiz.session.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcQuizSessionStore implements QuizSessionStore {
+
+  // Bazada sessiyasi yo‘q chatlar shu songacha eslab qolinadi, keyin ro‘yxat tozalanadi.
+  // Bu faqat ortiqcha SELECT'dan saqlaydi: o‘chirilishi kutilayotgan sessiyalar alohida (deleting) turadi
+  private static final int MAX_MISSING = 100_000;
+
+  private static final String UPSERT = """
+      insert into quiz_sessions (chat_id, subject_id, section_number, current_question_index,
+          correct_answers_count, wrong_answers_count, active, updated_at)
+      values (?, ?, ?, ?, ?, ?, ?, ?)
+      on conflict (chat_id) do update set
+          subject_id = excluded.subject_id,
+          section_number = excluded.section_number,
+          current_question_index = excluded.current_question_index,
+          correct_answers_count = excluded.correct_answers_count,
+          wrong_answers_count = excluded.wrong_answers_count,
+          active = excluded.active,
+          updated_at = excluded.updated_at
+      """;
+  private static final String DELETE = "delete from quiz_sessions where chat_id = ?";
+  private static final String SELECT = """
+      select subject_id, section_number, current_question_index, correct_answers_count,
+          wrong_answers_count, active
+      from quiz_sessions where chat_id = ? and updated_at > ?
+      """;
+  private static final String PURGE = "delete from quiz_sessions where updated_at < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration idleTimeout;
+  // Uzoq vaqt javob bermagan sessiyalar xotiradan o‘chiriladi va keyingi flush'da bazadan ham o‘chadi.
+  // Hajm chegarasi sababli chiqarilganlari esa bazada qoladi va keyingi murojaatda tiklanadi
+  private final IdleExpiringMap<Long, QuizState> sessions;
+  // Hajm sababli xotiradan chiqarilgan, keyingi flush'da bazaga yoziladigan sessiyalar
+  private final Map<Long, QuizState> evictedDirty = new ConcurrentHashMap<>();
+  // Bir interval ichidagi bir nechta o‘zgarish bitta yozuvga birlashadi
+  private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+  private final Set<Long> missing = ConcurrentHashMap.newKeySet();
+  // Xotirada o‘chirilgan (remove yoki muddati o‘tgan), bazadagi yozuvi hali DELETE qilinmagan chatlar.
+  // DELETE muvaffaqiyatli bo‘lguncha turadi: shu orada eski yozuv qayta tiklanmasligi kerak
+  private final Set<Long> deleting = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService flusher;
+
+  public JdbcQuizSessionStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+      @Value("${quiz.session.flush-interval-ms:1000}") long flushIntervalMs,
+      @Value("${quiz.session.idle-timeout:30m}") Duration idleTimeout,
+      @Value("${quiz.session.max-size:200000}") int maxSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.idleTimeout = idleTimeout;
+    this.sessions = new IdleExpiringMap<>("quiz_sessions", idleTimeout, maxSize, (chatId, state, cause) -> {
+      if (cause == IdleExpiringMap.Cause.SIZE) {
+        // Oxirgi holat keyingi flush'da yoziladi (flush ayni paytda bajarilayotgan bo‘lsa ham yo‘qolmaydi)
+        evictedDirty.put(chatId, state);
+      } else {
+        deleting.add(chatId);
+      }
+      dirty.add(chatId);
+    });
+    this.sessions.bindTo(meterRegistry);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "quiz-session-flusher"));
+    this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    this.flusher.scheduleWithFixedDelay(this::purgeExpired, 1, 60, TimeUnit.MINUTES);
+  }
+
+  @Override
+  public QuizState get(Long chatId) {
+    QuizState state = sessions.get(chatId);
+    if (state != null || deleting.contains(chatId) || missing.contains(chatId)) {
+      return state;
+    }
+    // Bazadagi yozuv hali eski: xotiradagi so‘nggi holat qaytariladi
+    QuizState evicted = evictedDirty.remove(chatId);
+    if (evicted != null) {
+      QuizState existing = sessions.putIfAbsent(chatId, evicted);
+      return existing != null ? existing : evicted;
+    }
+    return restore(chatId);
+  }
+
+  @Override
+  public void put(Long chatId, QuizState state) {
+    sessions.put(chatId, state);
+    evictedDirty.remove(chatId);
+    deleting.remove(chatId);
+    missing.remove(chatId);
+    dirty.add(chatId);
+  }
+
+  @Override
+  public void markDirty(Long chatId) {
+    dirty.add(chatId);
+  }
+
+  @Override
+  public QuizState remove(Long chatId) {
+    QuizState state = sessions.remove(chatId);
+    evictedDirty.remove(chatId);
+    // Keyingi flush'da bazadan o‘chiriladi; ungacha eski yozuv qayta tiklanmasin
+    deleting.add(chatId);
+    dirty.add(chatId);
+    return state;
+  }
+
+  @Override
+  public int size() {
+    return sessions.size();
+  }
+
+  private QuizState restore(Long chatId) {
+    List<QuizState> rows;
+    try {
+      rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+        QuizState state = new QuizState();
+        long subjectId = rs.getLong("subject_id");
+        state.setSubjectId(rs.wasNull() ? null : subjectId);
+        state.setSection(rs.getInt("section_number"));
+        state.setCurrentQuestionIndex(rs.getInt("current_question_index"));
+        state.setCorrectAnswersCount(rs.getInt("correct_answers_count"));
+        state.setWrongAnswersCount(rs.getInt("wrong_answers_count"));
+        state.setActive(rs.getBoolean("active"));
+        return state;
+      }, chatId, Timestamp.valueOf(LocalDateTime.now().minus(idleTimeout)));
+    } catch (DataAccessException e) {
+      log.error("Quiz sessiyasini tiklab bo‘lmadi: chatId={}, {}", chatId, e.getMessage());
+      return null;
+    }
+
+    if (rows.isEmpty()) {
+      rememberMissing(chatId);
+      return null;
+    }
+    QuizState existing = sessions.putIfAbsent(chatId, rows.get(0));
+    return existing != null ? existing : rows.get(0);
+  }
+
+  private void rememberMissing(Long chatId) {
+    if (missing.size() >= MAX_MISSING) {
+      missing.clear();
+    }
+    missing.add(chatId);
+  }
+
+  // Flusher oqimida. Kalit holat o‘qilishidan oldin olib tashlanadi: keyingi o‘zgarish uni yana belgilaydi
+  void flush() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+
+    List<Long> flushed = new ArrayList<>();
+    Map<Long, QuizState> flushedEvicted = new HashMap<>();
+    List<Object[]> upserts = new ArrayList<>();
+    List<Object[]> deletes = new ArrayList<>();
+    List<Long> deletedIds = new ArrayList<>();
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+      Long chatId = it.next();
+      it.remove();
+      flushed.add(chatId);
+      QuizState state = sessions.peek(chatId);
+      if (state == null) {
+        state = evictedDirty.get(chatId);
+        if (state != null) {
+          flushedEvicted.put(chatId, state);
+        }
+      }
+      if (state == null) {
+        deletes.add(new Object[]{chatId});
+        deletedIds.add(chatId);
+      } else {
+        upserts.add(new Object[]{
+            chatId,
+            state.getSubjectId(),
+            state.getSection(),
+            state.getCurrentQuestionIndex(),
+            state.getCorrectAnswersCount(),
+            state.getWrongAnswersCount(),
+            state.isActive(),
+            now
+        });
+      }
+    }
+
+    try {
+      if (!upserts.isEmpty()) {
+        jdbcTemplate.batchUpdate(UPSERT, upserts, new int[]{Types.BIGINT, Types.BIGINT, Types.INTEGER,
+            Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.BOOLEAN, Types.TIMESTAMP});
+      }
+      if (!deletes.isEmpty()) {
+        jdbcTemplate.batchUpdate(DELETE, deletes);
+      }
+      // Yozildi: endi bazadan tiklanadi (shu orada yangisi qo‘yilgan bo‘lsa, u qoladi)
+      flushedEvicted.forEach(evictedDirty::remove);
+      // Bazada yozuv yo‘q. Shu orada put() bo‘lgan bo‘lsa, u deleting'ni o‘zi tozalagan va sessiya xotirada
+      for (Long chatId : deletedIds) {
+        if (deleting.remove(chatId)) {
+          rememberMissing(chatId);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Keyingi intervalda qayta uriniladi; scheduler oqimi xatodan to‘xtab qolmasligi kerak
+      log.error("Quiz sessiyalarini saqlab bo‘lmadi ({} ta): {}", flushed.size(), e.getMessage());
+      dirty.addAll(flushed);
+    }
+  }
+
+  // Xotiradan chiqib ketmasdan qolgan eski yozuvlar (masalan, to‘satdan to‘xtashdan keyin)
+  private void purgeExpired() {
+    try {
+      int purged = jdbcTemplate.update(PURGE, Timestamp.valueOf(LocalDateTime.now().minus(idleTimeout)));
+      if (purged > 0) {
+        log.info("{} ta eskirgan quiz sessiyasi o‘chirildi", purged);
+      }
+    } catch (RuntimeException e) {
+      log.error("Eskirgan quiz sessiyalarini o‘chirib bo‘lmadi: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    sessions.close();
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flush();
+  }
+
+}
@@ -0,0 +1,113 @@
+package com.smart.quiz;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Bitta fan reytingi. Tartib: to‘g‘ri javoblar (kamayish), jami javoblar (o‘sish), userId.
+// O‘rin "musobaqa" usulida: 1 + ko‘proq to‘g‘ri javob bergan foydalanuvchilar soni. Bu son to‘g‘ri javoblar
+// bo‘yicha Fenwick daraxtidan O(log n) da olinadi, top-N esa tartiblangan to‘plamning boshidan o‘qiladi.
+class Leaderboard {
+
+  record Entry(long userId, String userName, long correct, long answered) {
+  }
+
+  record Ranked(int rank, Entry entry) {
+  }
+
+  private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::correct).reversed()
+      .thenComparingLong(Entry::answered)
+      .thenComparingLong(Entry::userId);
+
+  private final Map<Long, Entry> byUser = new HashMap<>();
+  private final TreeSet<Entry> ordered = new TreeSet<>(ORDER);
+  // tree[i] - to‘g‘ri javoblar soni i-1 bo‘lgan foydalanuvchilar (Fenwick ko‘rinishida)
+  private long[] tree = new long[1024];
+
+  synchronized Entry add(long userId, String userName, long correct, long answered) {
+    Entry previous = byUser.get(userId);
+    Entry updated = previous == null
+        ? new Entry(userId, userName, correct, answered)
+        : new Entry(userId, userName != null ? userName : previous.userName(), previous.correct() + correct,
+            previous.answered() + answered);
+    replace(previous, updated);
+    return updated;
+  }
+
+  // Snapshot'dan tiklashda: qiymat qo‘shilmaydi, almashtiriladi
+  synchronized void put(Entry entry) {
+    replace(byUser.get(entry.userId()), entry);
+  }
+
+  synchronized Entry get(long userId) {
+    return byUser.get(userId);
+  }
+
+  synchronized List<Ranked> top(int limit) {
+    List<Ranked> result = new ArrayList<>(Math.min(limit, ordered.size()));
+    Iterator<Entry> it = ordered.iterator();
+    while (it.hasNext() && result.size() < limit) {
+      Entry entry = it.next();
+      result.add(new Ranked(rankOf(entry.correct()), entry));
+    }
+    return result;
+  }
+
+  synchronized Ranked rank(long userId) {
+    Entry entry = byUser.get(userId);
+    return entry != null ? new Ranked(rankOf(entry.correct()), entry) : null;
+  }
+
+  synchronized int size() {
+    return byUser.size();
+  }
+
+  private void replace(Entry previous, Entry updated) {
+    if (previous != null) {
+      ordered.remove(previous);
+      update(previous.correct(), -1);
+    }
+    byUser.put(updated.userId(), updated);
+    ordered.add(updated);
+    update(updated.correct(), 1);
+  }
+
+  private int rankOf(long correct) {
+    return (int) (byUser.size() - countAtMost(correct)) + 1;
+  }
+
+  private void update(long correct, long delta) {
+    if (correct + 1 >= tree.length) {
+      grow(correct);
+      if (delta > 0) {
+        return; // grow() byUser'dagi qiymatni allaqachon qo‘shgan
+      }
+    }
+    for (int i = (int) correct + 1; i < tree.length; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+
+  private long countAtMost(long correct) {
+    long sum = 0;
+    for (int i = (int) Math.min(correct + 1, tree.length - 1); i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  // Daraxt byUser'dan qaytadan quriladi (yangi qiymat byUser'ga allaqachon qo‘yilgan)
+  private void grow(long correct) {
+    tree = new long[Integer.highestOneBit((int) (correct + 1)) << 1];
+    for (Entry entry : byUser.values()) {
+      for (int i = (int) entry.correct() + 1; i < tree.length; i += i & -i) {
+        tree[i]++;
+      }
+    }
+  }
+
+}
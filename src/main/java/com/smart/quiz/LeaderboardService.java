@@ -0,0 +1,273 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.LeaderboardDto;
+import com.smart.quiz.dto.LeaderboardEntryDto;
+import com.smart.quiz.dto.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// Fanlar bo‘yicha reytinglar xotirada turadi va har bir natija bilan o‘zgaradi; so‘rovlar bazaga tushmaydi.
+// O‘zgargan qatorlar davriy ravishda leaderboard_scores jadvaliga yoziladi. Fan reytingi birinchi murojaatda
+// shu jadvaldan, u bo‘sh bo‘lsa (avvalgi natijalar) stats jadvalidan bir marta yig‘ib tiklanadi.
+// Uzoq ishlatilmagan reytinglar xotiradan chiqariladi; yozilmagan o‘zgarishi bor reyting snapshot'gacha saqlanadi.
+// Mavjud bo‘lmagan fan uchun bo‘sh reyting qaytariladi, lekin keshga qo‘yilmaydi.
+@Slf4j
+@Service
+public class LeaderboardService {
+
+  private static final String SELECT_SNAPSHOT = """
+      select user_id, user_name, correct_answers, total_answers from leaderboard_scores where subject_id = ?
+      """;
+  private static final String SELECT_FROM_STATS = """
+      select s.user_id, max(u.user_name) as user_name, sum(s.correct_answer_count) as correct_answers,
+          sum(s.total_question) as total_answers
+      from stats s left join users u on u.chat_id = s.user_id
+      where s.subject_id = ?
+      group by s.user_id
+      """;
+  private static final String SUBJECT_EXISTS = "select count(*) from subjects where id = ?";
+  private static final String UPSERT = """
+      insert into leaderboard_scores (subject_id, user_id, user_name, correct_answers, total_answers, updated_at)
+      values (?, ?, ?, ?, ?, ?)
+      on conflict (subject_id, user_id) do update set
+          user_name = excluded.user_name,
+          correct_answers = excluded.correct_answers,
+          total_answers = excluded.total_answers,
+          updated_at = excluded.updated_at
+      """;
+
+  private record BoardKey(long subjectId, long userId) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final UsersRepository usersRepository;
+  private final IdleExpiringMap<Long, Leaderboard> boards;
+  // Xotiradan chiqarilgan reytinglar: o‘zgarishlari snapshot'da yozilguncha shu yerda, qayta murojaatda
+  // bazadan emas, shu yerdan qaytariladi
+  private final Map<Long, Leaderboard> evicted = new ConcurrentHashMap<>();
+  // Fan reytingi bir vaqtda faqat bir marta yuklanadi; yuklash map lock'idan tashqarida bajariladi
+  private final ConcurrentHashMap<Long, CompletableFuture<Leaderboard>> loading = new ConcurrentHashMap<>();
+  // Foydalanuvchi nomi har bir foydalanuvchi uchun bir marta o‘qiladi
+  private final ConcurrentHashMap<Long, String> userNames = new ConcurrentHashMap<>();
+  private final Set<BoardKey> dirty = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService snapshotter;
+
+  public LeaderboardService(JdbcTemplate jdbcTemplate, UsersRepository usersRepository, MeterRegistry meterRegistry,
+      @Value("${quiz.leaderboard.snapshot-interval-ms:10000}") long snapshotIntervalMs,
+      @Value("${quiz.leaderboard.idle-timeout:6h}") Duration idleTimeout,
+      @Value("${quiz.leaderboard.max-subjects:1000}") int maxSubjects) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.usersRepository = usersRepository;
+    this.boards = new IdleExpiringMap<>("leaderboards", idleTimeout, maxSubjects, evicted::put);
+    this.boards.bindTo(meterRegistry);
+    this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "leaderboard-snapshot"));
+    this.snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public void record(Long subjectId, Long userId, long correct, long answered) {
+    while (true) {
+      Leaderboard board = board(subjectId, true);
+      String userName = board.get(userId) == null ? userName(userId) : null;
+      synchronized (board) {
+        // Snapshot shu orada chiqarilgan reytingni yozib, tashlab yuborgan bo‘lsa, natija joriy reytingga qo‘shiladi
+        if (boards.peek(subjectId) == board || evicted.get(subjectId) == board) {
+          board.add(userId, userName, correct, answered);
+          dirty.add(new BoardKey(subjectId, userId));
+          return;
+        }
+      }
+    }
+  }
+
+  public LeaderboardDto getLeaderboard(Long subjectId, Long userId, int limit) {
+    Leaderboard board = board(subjectId, false);
+    List<LeaderboardEntryDto> top = new ArrayList<>();
+    for (Leaderboard.Ranked ranked : board.top(limit)) {
+      top.add(toDto(ranked));
+    }
+    Leaderboard.Ranked me = userId != null ? board.rank(userId) : null;
+    return new LeaderboardDto(subjectId, board.size(), top, me != null ? toDto(me) : null);
+  }
+
+  // publishUnknown = false: fan mavjud bo‘lmasa bo‘sh reyting qaytariladi va keshga qo‘yilmaydi
+  private Leaderboard board(Long subjectId, boolean publishUnknown) {
+    Leaderboard board = boards.get(subjectId);
+    if (board != null) {
+      return board;
+    }
+
+    CompletableFuture<Leaderboard> future = new CompletableFuture<>();
+    CompletableFuture<Leaderboard> inFlight = loading.putIfAbsent(subjectId, future);
+    if (inFlight != null) {
+      Leaderboard loaded = inFlight.join();
+      // Yuklovchi uni e'lon qilmagan bo‘lsa (noma'lum fan), yozish uchun qaytadan yuklanadi
+      return publishUnknown && boards.peek(subjectId) != loaded ? board(subjectId, true) : loaded;
+    }
+
+    try {
+      // Boshqa oqim yuklashni shu orada tugatib ulgurgan bo‘lishi mumkin
+      board = boards.get(subjectId);
+      if (board == null) {
+        board = load(subjectId, publishUnknown);
+      }
+      loading.remove(subjectId, future);
+      future.complete(board);
+      return board;
+    } catch (RuntimeException e) {
+      loading.remove(subjectId, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private Leaderboard load(Long subjectId, boolean publishUnknown) {
+    // Chiqarilgan, lekin hali yozilmagan reyting bazadagidan yangiroq
+    Leaderboard stashed = evicted.remove(subjectId);
+    if (stashed != null) {
+      Leaderboard published = boards.putIfAbsent(subjectId, stashed);
+      return published != null ? published : stashed;
+    }
+
+    Leaderboard board = new Leaderboard();
+    List<Leaderboard.Entry> entries = jdbcTemplate.query(SELECT_SNAPSHOT, (rs, rowNum) -> toEntry(rs), subjectId);
+    boolean fromStats = entries.isEmpty();
+    if (fromStats) {
+      entries = jdbcTemplate.query(SELECT_FROM_STATS, (rs, rowNum) -> toEntry(rs), subjectId);
+    }
+    if (entries.isEmpty() && !publishUnknown && !subjectExists(subjectId)) {
+      return board; // ixtiyoriy ID bilan so‘rovlar xotirani to‘ldirmasin
+    }
+    for (Leaderboard.Entry entry : entries) {
+      board.put(entry);
+    }
+    // Yuklash paytida chiqarib yuborilgan bo‘lsa (eviction listener kechikkan), o‘sha reyting ishlatiladi
+    stashed = evicted.remove(subjectId);
+    if (stashed != null) {
+      board = stashed;
+      fromStats = false;
+    }
+    Leaderboard published = boards.putIfAbsent(subjectId, board);
+    if (published != null) {
+      return published;
+    }
+    // Snapshot faqat xotiradagi reytingni o‘qiydi, shuning uchun qatorlar e'lon qilingandan keyin belgilanadi
+    if (fromStats) {
+      for (Leaderboard.Entry entry : entries) {
+        dirty.add(new BoardKey(subjectId, entry.userId()));
+      }
+    }
+    log.info("Fan reytingi yuklandi: subjectId={}, {} ta foydalanuvchi{}", subjectId, entries.size(),
+        fromStats ? " (stats jadvalidan)" : "");
+    return board;
+  }
+
+  private boolean subjectExists(Long subjectId) {
+    Integer count = jdbcTemplate.queryForObject(SUBJECT_EXISTS, Integer.class, subjectId);
+    return count != null && count > 0;
+  }
+
+  private static Leaderboard.Entry toEntry(ResultSet rs) throws SQLException {
+    return new Leaderboard.Entry(rs.getLong("user_id"), rs.getString("user_name"), rs.getLong("correct_answers"),
+        rs.getLong("total_answers"));
+  }
+
+  private String userName(Long userId) {
+    String name = userNames.get(userId);
+    if (name == null) {
+      name = usersRepository.findByChatId(userId).map(UserEntity::getUserName).orElse("");
+      userNames.put(userId, name);
+    }
+    return name.isEmpty() ? null : name;
+  }
+
+  private static LeaderboardEntryDto toDto(Leaderboard.Ranked ranked) {
+    Leaderboard.Entry entry = ranked.entry();
+    return new LeaderboardEntryDto(ranked.rank(), entry.userId(), entry.userName(), entry.correct(), entry.answered());
+  }
+
+  // Snapshotter oqimida
+  void snapshot() {
+    if (dirty.isEmpty()) {
+      releaseEvicted();
+      return;
+    }
+
+    List<BoardKey> flushed = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>();
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    for (Iterator<BoardKey> it = dirty.iterator(); it.hasNext(); ) {
+      BoardKey key = it.next();
+      it.remove();
+      flushed.add(key);
+      Leaderboard board = current(key.subjectId());
+      Leaderboard.Entry entry = board != null ? board.get(key.userId()) : null;
+      if (entry != null) {
+        rows.add(new Object[]{key.subjectId(), entry.userId(), entry.userName(), entry.correct(), entry.answered(), now});
+      }
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(UPSERT, rows);
+    } catch (RuntimeException e) {
+      log.error("Reyting snapshot'ini saqlab bo‘lmadi ({} ta): {}", rows.size(), e.getMessage());
+      dirty.addAll(flushed);
+      return;
+    }
+    releaseEvicted();
+  }
+
+  private Leaderboard current(long subjectId) {
+    Leaderboard board = boards.peek(subjectId);
+    return board != null ? board : evicted.get(subjectId);
+  }
+
+  // Yozilmagan o‘zgarishi qolmagan chiqarilgan reytinglar tashlab yuboriladi. record() ham shu monitor ostida
+  // tekshiradi, shuning uchun tashlangan reytingga natija qo‘shilib qolmaydi
+  private void releaseEvicted() {
+    for (Map.Entry<Long, Leaderboard> entry : evicted.entrySet()) {
+      Leaderboard board = entry.getValue();
+      synchronized (board) {
+        if (!hasDirty(entry.getKey())) {
+          evicted.remove(entry.getKey(), board);
+        }
+      }
+    }
+  }
+
+  private boolean hasDirty(long subjectId) {
+    for (BoardKey key : dirty) {
+      if (key.subjectId() == subjectId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    boards.close();
+    snapshotter.shutdown();
+    snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+    snapshot();
+  }
+
+}
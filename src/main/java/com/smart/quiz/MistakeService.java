@@ -0,0 +1,176 @@
+package com.smart.quiz;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+// Har bir foydalanuvchi va fan uchun xato/to‘g‘ri javob berilgan savollar tartib raqamlari QuestionBitmap'da.
+// Xato javob savolni "xatolar"ga qo‘shadi, keyingi to‘g‘ri javob uni olib tashlaydi. Bitmap'lar xotirada
+// (muddati o‘tsa chiqariladi) va o‘zgarganlari davriy ravishda user_question_bitmaps jadvaliga bytea qilib yoziladi.
+// Tartib raqamlari barqarorligi QuestionBulkWriter.lockSubject kafolatiga bog‘liq (SubjectSections.ordinal).
+@Slf4j
+@Service
+public class MistakeService {
+
+  private static final String SELECT = """
+      select wrong_ordinals, right_ordinals from user_question_bitmaps where user_id = ? and subject_id = ?
+      """;
+  private static final String UPSERT = """
+      insert into user_question_bitmaps (user_id, subject_id, wrong_ordinals, right_ordinals, updated_at)
+      values (?, ?, ?, ?, ?)
+      on conflict (user_id, subject_id) do update set
+          wrong_ordinals = excluded.wrong_ordinals,
+          right_ordinals = excluded.right_ordinals,
+          updated_at = excluded.updated_at
+      """;
+
+  private record UserSubject(long userId, long subjectId) {
+  }
+
+  // Faqat o‘z monitori ostida o‘zgartiriladi (update yo‘lagi va flusher oqimi)
+  private static final class Bitmaps {
+
+    private final QuestionBitmap wrong;
+    private final QuestionBitmap right;
+
+    private Bitmaps(QuestionBitmap wrong, QuestionBitmap right) {
+      this.wrong = wrong;
+      this.right = right;
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final IdleExpiringMap<UserSubject, Bitmaps> cache;
+  // Yozilmagan o‘zgarishlar qiymati bilan: xotiradan chiqarilgan bitmap ham flush'da yoziladi
+  private final ConcurrentHashMap<UserSubject, Bitmaps> dirty = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+
+  public MistakeService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+      @Value("${quiz.mistakes.flush-interval-ms:2000}") long flushIntervalMs,
+      @Value("${quiz.mistakes.idle-timeout:30m}") Duration idleTimeout,
+      @Value("${quiz.mistakes.max-size:200000}") int maxSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.cache = new IdleExpiringMap<>("question_bitmaps", idleTimeout, maxSize, (key, bitmaps) -> { });
+    this.cache.bindTo(meterRegistry);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "question-bitmap-flusher"));
+    this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public void record(long userId, long subjectId, int ordinal, boolean isCorrect) {
+    UserSubject key = new UserSubject(userId, subjectId);
+    Bitmaps bitmaps = bitmaps(key);
+    synchronized (bitmaps) {
+      if (isCorrect) {
+        bitmaps.wrong.clear(ordinal);
+        bitmaps.right.set(ordinal);
+      } else {
+        bitmaps.wrong.set(ordinal);
+        bitmaps.right.clear(ordinal);
+      }
+    }
+    dirty.put(key, bitmaps);
+  }
+
+  public int mistakeCount(long userId, long subjectId) {
+    Bitmaps bitmaps = bitmaps(new UserSubject(userId, subjectId));
+    synchronized (bitmaps) {
+      return bitmaps.wrong.cardinality();
+    }
+  }
+
+  // Xato javob berilgan savollardan (tartib raqami bo‘yicha) ko‘pi bilan limit tasi
+  public int[] mistakeOrdinals(long userId, long subjectId, int questionCount, int limit) {
+    Bitmaps bitmaps = bitmaps(new UserSubject(userId, subjectId));
+    int[] ordinals = new int[limit];
+    int count = 0;
+    synchronized (bitmaps) {
+      for (int ordinal = bitmaps.wrong.nextSetBit(0); ordinal >= 0 && ordinal < questionCount && count < limit;
+          ordinal = bitmaps.wrong.nextSetBit(ordinal + 1)) {
+        ordinals[count++] = ordinal;
+      }
+    }
+    return Arrays.copyOf(ordinals, count);
+  }
+
+  private Bitmaps bitmaps(UserSubject key) {
+    Bitmaps bitmaps = cache.get(key);
+    if (bitmaps != null) {
+      return bitmaps;
+    }
+    bitmaps = dirty.get(key); // xotiradan chiqarilgan, lekin hali yozilmagan
+    if (bitmaps == null) {
+      bitmaps = load(key);
+    }
+    Bitmaps existing = cache.putIfAbsent(key, bitmaps);
+    return existing != null ? existing : bitmaps;
+  }
+
+  private Bitmaps load(UserSubject key) {
+    try {
+      List<Bitmaps> rows = jdbcTemplate.query(SELECT, (rs, rowNum) -> new Bitmaps(
+          QuestionBitmap.fromBytes(rs.getBytes("wrong_ordinals")),
+          QuestionBitmap.fromBytes(rs.getBytes("right_ordinals"))), key.userId(), key.subjectId());
+      if (!rows.isEmpty()) {
+        return rows.get(0);
+      }
+    } catch (DataAccessException e) {
+      log.error("Savollar bitmap'ini o‘qib bo‘lmadi: userId={}, {}", key.userId(), e.getMessage());
+    }
+    return new Bitmaps(new QuestionBitmap(), new QuestionBitmap());
+  }
+
+  // Flusher oqimida. Kalit bitmap o‘qilishidan oldin olib tashlanadi: keyingi o‘zgarish uni yana qo‘shadi
+  void flush() {
+    if (dirty.isEmpty()) {
+      return;
+    }
+
+    List<Map.Entry<UserSubject, Bitmaps>> flushed = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>();
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    for (Iterator<Map.Entry<UserSubject, Bitmaps>> it = dirty.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<UserSubject, Bitmaps> entry = it.next();
+      it.remove();
+      flushed.add(entry);
+      Bitmaps bitmaps = entry.getValue();
+      synchronized (bitmaps) {
+        rows.add(new Object[]{entry.getKey().userId(), entry.getKey().subjectId(), bitmaps.wrong.toBytes(),
+            bitmaps.right.toBytes(), now});
+      }
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(UPSERT, rows);
+    } catch (RuntimeException e) {
+      log.error("Savollar bitmap'larini saqlab bo‘lmadi ({} ta): {}", rows.size(), e.getMessage());
+      for (Map.Entry<UserSubject, Bitmaps> entry : flushed) {
+        dirty.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    cache.close();
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flush();
+  }
+
+}
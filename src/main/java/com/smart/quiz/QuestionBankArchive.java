@@ -0,0 +1,244 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import com.smart.quiz.exception.InvalidFileFormatException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+// Fanlar va savol banklarini muhitlar orasida ko‘chirish formati. Butun fayl GZIP bilan siqiladi:
+//
+//   "QBNK" | versiya (1 bayt) | yozuvlar... | END
+//   SUBJECT  = 1 | nom | tavsif
+//   QUESTION = 2 | matn | variantlar soni (varint) | { to‘g‘ri (1 bayt) | matn }...
+//   END      = 0 | fanlar soni (varint) | savollar soni (varint)
+//
+// Satrlar uzunlik prefiksi bilan yoziladi: varint(UTF-8 baytlar + 1), 0 esa null. Savollar o‘zidan oldingi
+// SUBJECT yozuviga tegishli. Yozish ham, o‘qish ham oqim bilan: xotirada faqat joriy savol turadi.
+public final class QuestionBankArchive {
+
+  public static final String CONTENT_TYPE = "application/vnd.smart-quiz.bank";
+  public static final String FILE_EXTENSION = ".qbnk";
+
+  static final byte VERSION = 1;
+  private static final byte[] MAGIC = {'Q', 'B', 'N', 'K'};
+  private static final int TAG_END = 0;
+  private static final int TAG_SUBJECT = 1;
+  private static final int TAG_QUESTION = 2;
+
+  // Buzilgan yoki qasddan katta qilingan fayl xotirani to‘ldirib yubormasligi uchun
+  static final int MAX_STRING_BYTES = 1024 * 1024;
+  static final int MAX_OPTIONS = 64;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private QuestionBankArchive() {
+  }
+
+  public interface Sink {
+
+    void subject(String name, String description);
+
+    void question(QuestionResponseDto question);
+  }
+
+  public static Writer writer(OutputStream out) throws IOException {
+    return new Writer(out);
+  }
+
+  // Fayl oxirigacha o‘qiladi; END yozuvidagi sonlar o‘qilgan yozuvlar bilan solishtiriladi
+  public static void read(InputStream source, Sink sink) throws IOException {
+    InputStream in;
+    try {
+      in = new BufferedInputStream(new GZIPInputStream(source, BUFFER_SIZE), BUFFER_SIZE);
+    } catch (ZipException | EOFException e) {
+      throw invalid("Fayl GZIP bilan siqilmagan");
+    }
+
+    try {
+      byte[] magic = in.readNBytes(MAGIC.length);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw invalid("Fayl boshida QBNK belgisi yo‘q");
+      }
+      int version = in.read();
+      if (version != VERSION) {
+        throw invalid("Qo‘llab-quvvatlanmaydigan versiya: " + version);
+      }
+
+      long subjects = 0;
+      long questions = 0;
+      boolean hasSubject = false;
+      while (true) {
+        int tag = in.read();
+        switch (tag) {
+          case TAG_SUBJECT -> {
+            String name = readString(in);
+            if (name == null || name.isBlank()) {
+              throw invalid("Fan nomi bo‘sh");
+            }
+            sink.subject(name, readString(in));
+            hasSubject = true;
+            subjects++;
+          }
+          case TAG_QUESTION -> {
+            if (!hasSubject) {
+              throw invalid("Savol fandan oldin kelgan");
+            }
+            sink.question(readQuestion(in));
+            questions++;
+          }
+          case TAG_END -> {
+            if (readVarint(in) != subjects || readVarint(in) != questions) {
+              throw invalid("Yozuvlar soni fayl oxiridagi sonlarga mos kelmaydi");
+            }
+            // GZIP trailer (CRC va hajm) shu o‘qishda tekshiriladi
+            if (in.read() != -1) {
+              throw invalid("END yozuvidan keyin ortiqcha ma’lumot bor");
+            }
+            return;
+          }
+          case -1 -> throw invalid("Fayl to‘liq emas (END yozuvi yo‘q)");
+          default -> throw invalid("Noma’lum yozuv turi: " + tag);
+        }
+      }
+    } catch (ZipException | EOFException e) {
+      throw invalid("Fayl to‘liq emas yoki buzilgan");
+    }
+  }
+
+  private static QuestionResponseDto readQuestion(InputStream in) throws IOException {
+    String text = readString(in);
+    long optionCount = readVarint(in);
+    if (optionCount > MAX_OPTIONS) {
+      throw invalid("Savolda juda ko‘p variant: " + optionCount);
+    }
+    List<OptionResponseDto> options = new ArrayList<>((int) optionCount);
+    for (int i = 0; i < optionCount; i++) {
+      int correct = in.read();
+      if (correct < 0) {
+        throw new EOFException();
+      }
+      options.add(new OptionResponseDto(null, readString(in), correct != 0));
+    }
+    return new QuestionResponseDto(null, text, options);
+  }
+
+  private static String readString(InputStream in) throws IOException {
+    long length = readVarint(in);
+    if (length == 0) {
+      return null;
+    }
+    if (length - 1 > MAX_STRING_BYTES) {
+      throw invalid("Satr juda uzun: " + (length - 1) + " bayt");
+    }
+    byte[] bytes = in.readNBytes((int) (length - 1));
+    if (bytes.length != length - 1) {
+      throw new EOFException();
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw invalid("Varint juda uzun");
+  }
+
+  private static InvalidFileFormatException invalid(String detail) {
+    return new InvalidFileFormatException(
+        "Savol banki faylini o'qib bo'lmadi",
+        List.of(
+            "Fayl /v1/quiz/bank/export orqali olinganiga ishonch hosil qiling",
+            detail
+        )
+    );
+  }
+
+  public static final class Writer {
+
+    private final GZIPOutputStream gzip;
+    private final OutputStream out;
+    private long subjects;
+    private long questions;
+    private boolean finished;
+
+    private Writer(OutputStream target) throws IOException {
+      this.gzip = new GZIPOutputStream(target, BUFFER_SIZE);
+      this.out = new BufferedOutputStream(gzip, BUFFER_SIZE);
+      out.write(MAGIC);
+      out.write(VERSION);
+    }
+
+    public void subject(String name, String description) throws IOException {
+      out.write(TAG_SUBJECT);
+      writeString(name);
+      writeString(description);
+      subjects++;
+    }
+
+    public void question(QuestionResponseDto question) throws IOException {
+      out.write(TAG_QUESTION);
+      writeString(question.getQuestionText());
+      writeVarint(question.getOptions().size());
+      for (OptionResponseDto option : question.getOptions()) {
+        out.write(option.isCorrect() ? 1 : 0);
+        writeString(option.getOptionText());
+      }
+      questions++;
+    }
+
+    // END va GZIP oxiri yoziladi; asosiy oqim yopilmaydi (uni chaqiruvchi boshqaradi).
+    // Xatolikda chaqirilmaydi: END yo‘q fayl import paytida to‘liq emas deb rad etiladi
+    public void finish() throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      out.write(TAG_END);
+      writeVarint(subjects);
+      writeVarint(questions);
+      out.flush();
+      gzip.finish();
+      gzip.flush();
+    }
+
+    private void writeString(String value) throws IOException {
+      if (value == null) {
+        writeVarint(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length + 1L);
+      out.write(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+        out.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      out.write((int) value);
+    }
+  }
+
+}
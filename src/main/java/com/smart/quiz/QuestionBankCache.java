@@ -0,0 +1,215 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.CompiledQuestion;
+import com.smart.quiz.dto.OptionsEntity;
+import com.smart.quiz.dto.QuestionBank;
+import com.smart.quiz.dto.QuestionsEntity;
+import com.smart.quiz.dto.SubjectSections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class QuestionBankCache {
+
+  private final QuestionRepository questionRepository;
+  private final int maxSubjects;
+
+  // Fan bo‘yicha tayyor savollar banki
+  private final Map<Long, CachedBank> banks = new ConcurrentHashMap<>();
+  // Bir fan bir vaqtda faqat bir marta yuklanadi
+  private final Map<Long, CompletableFuture<QuestionBank>> loading = new ConcurrentHashMap<>();
+  // Quizni boshlash uchun faqat IDlar (bank hali yuklanmagan fanlar uchun)
+  private final Map<Long, CachedSections> sections = new ConcurrentHashMap<>();
+  // IDlar proyeksiyasi ham bir vaqtda bir marta; invalidate uni olib tashlab, natijani keshga qo‘yishni bekor qiladi
+  private final Map<Long, CompletableFuture<SubjectSections>> sectionsLoading = new ConcurrentHashMap<>();
+
+  public QuestionBankCache(QuestionRepository questionRepository,
+      @Value("${quiz.question-bank.max-subjects:256}") int maxSubjects) {
+    this.questionRepository = questionRepository;
+    this.maxSubjects = maxSubjects;
+  }
+
+  public QuestionBank get(Long subjectId) {
+    CachedBank cached = banks.get(subjectId);
+    if (cached != null) {
+      cached.lastAccess = System.nanoTime();
+      return cached.bank;
+    }
+
+    CompletableFuture<QuestionBank> future = new CompletableFuture<>();
+    CompletableFuture<QuestionBank> inFlight = loading.putIfAbsent(subjectId, future);
+    if (inFlight != null) {
+      return inFlight.join();
+    }
+
+    try {
+      QuestionBank bank = load(subjectId);
+      // Yuklash paytida invalidate chaqirilgan bo‘lsa, eskirgan bankni keshga qo‘ymaymiz
+      if (loading.remove(subjectId, future)) {
+        banks.put(subjectId, new CachedBank(bank));
+        sections.remove(subjectId); // endi bankdagi massiv ishlatiladi
+        evictIfNeeded();
+      }
+      future.complete(bank);
+      return bank;
+    } catch (RuntimeException e) {
+      loading.remove(subjectId, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  // Bank keshda bo‘lsa uning massivi ishlatiladi, aks holda bitta ID proyeksiya so‘rovi yuboriladi
+  public SubjectSections getSections(Long subjectId) {
+    CachedBank cachedBank = banks.get(subjectId);
+    if (cachedBank != null) {
+      cachedBank.lastAccess = System.nanoTime();
+      return cachedBank.bank.getSections();
+    }
+
+    CachedSections cached = sections.get(subjectId);
+    if (cached != null) {
+      cached.lastAccess = System.nanoTime();
+      return cached.sections;
+    }
+
+    CompletableFuture<SubjectSections> future = new CompletableFuture<>();
+    CompletableFuture<SubjectSections> inFlight = sectionsLoading.putIfAbsent(subjectId, future);
+    if (inFlight != null) {
+      return inFlight.join();
+    }
+
+    try {
+      SubjectSections loaded = loadSections(subjectId);
+      // Yuklash paytida invalidate chaqirilgan bo‘lsa, eskirgan IDlarni keshga qo‘ymaymiz
+      if (sectionsLoading.remove(subjectId, future)) {
+        sections.put(subjectId, new CachedSections(loaded));
+        evictSectionsIfNeeded();
+      }
+      future.complete(loaded);
+      return loaded;
+    } catch (RuntimeException e) {
+      sectionsLoading.remove(subjectId, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  public void invalidate(Long subjectId) {
+    if (subjectId == null) {
+      return;
+    }
+    loading.remove(subjectId);
+    sectionsLoading.remove(subjectId);
+    banks.remove(subjectId);
+    sections.remove(subjectId);
+  }
+
+  private SubjectSections loadSections(Long subjectId) {
+    List<Long> ids = questionRepository.findIdsBySubjectId(subjectId);
+    long[] questionIds = new long[ids.size()];
+    for (int i = 0; i < questionIds.length; i++) {
+      questionIds[i] = ids.get(i);
+    }
+    return new SubjectSections(subjectId, questionIds);
+  }
+
+  private QuestionBank load(Long subjectId) {
+    List<QuestionsEntity> entities = questionRepository.findAllWithOptionsBySubjectId(subjectId);
+    long[] ids = new long[entities.size()];
+    Map<Long, CompiledQuestion> questions = new HashMap<>(entities.size() * 2);
+
+    for (int i = 0; i < entities.size(); i++) {
+      QuestionsEntity entity = entities.get(i);
+      ids[i] = entity.getId();
+      questions.put(entity.getId(), compile(entity));
+    }
+
+    log.info("Savollar banki yuklandi: subjectId={}, savollar={}", subjectId, ids.length);
+    return new QuestionBank(subjectId, ids, questions);
+  }
+
+  private CompiledQuestion compile(QuestionsEntity entity) {
+    List<OptionsEntity> options = entity.getOptions();
+    int correctIndex = -1;
+    for (int i = 0; i < options.size(); i++) {
+      if (options.get(i).isCorrect()) {
+        correctIndex = i;
+        break;
+      }
+    }
+
+    List<String> optionTexts = options.stream()
+        .map(option -> trimOptionText(option.getOptionText()))
+        .toList();
+
+    return new CompiledQuestion(entity.getId(), entity.getQuestionText(), optionTexts, correctIndex);
+  }
+
+  private String trimOptionText(String option) {
+    return option.length() > 100 ? option.substring(0, 97) + "..." : option;
+  }
+
+  private void evictSectionsIfNeeded() {
+    while (sections.size() > maxSubjects) {
+      Long oldestId = null;
+      long oldestAccess = Long.MAX_VALUE;
+      for (Map.Entry<Long, CachedSections> entry : sections.entrySet()) {
+        if (entry.getValue().lastAccess < oldestAccess) {
+          oldestAccess = entry.getValue().lastAccess;
+          oldestId = entry.getKey();
+        }
+      }
+      if (oldestId == null) {
+        return;
+      }
+      sections.remove(oldestId);
+    }
+  }
+
+  // Eng uzoq vaqt ishlatilmagan fanni chiqarib tashlash
+  private void evictIfNeeded() {
+    while (banks.size() > maxSubjects) {
+      Long oldestId = null;
+      long oldestAccess = Long.MAX_VALUE;
+      for (Map.Entry<Long, CachedBank> entry : banks.entrySet()) {
+        if (entry.getValue().lastAccess < oldestAccess) {
+          oldestAccess = entry.getValue().lastAccess;
+          oldestId = entry.getKey();
+        }
+      }
+      if (oldestId == null) {
+        return;
+      }
+      banks.remove(oldestId);
+    }
+  }
+
+  private static final class CachedSections {
+    private final SubjectSections sections;
+    private volatile long lastAccess;
+
+    private CachedSections(SubjectSections sections) {
+      this.sections = sections;
+      this.lastAccess = System.nanoTime();
+    }
+  }
+
+  private static final class CachedBank {
+    private final QuestionBank bank;
+    private volatile long lastAccess;
+
+    private CachedBank(QuestionBank bank) {
+      this.bank = bank;
+      this.lastAccess = System.nanoTime();
+    }
+  }
+
+}
@@ -0,0 +1,211 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.BankImportResultDto;
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Savol banklarini QuestionBankArchive formatida eksport/import qilish. Eksport bitta so‘rovni server
+// tomonidagi kursor bilan o‘qiydi; import esa faylni oqim bilan o‘qib, savollarni QuestionBulkWriter orqali
+// CHUNK_SIZE'lik batch'larda bitta tranzaksiyada yozadi. Entity'lar faqat fan va foydalanuvchi uchun ishlatiladi.
+@Slf4j
+@Service
+public class QuestionBankTransferService {
+
+  private static final String SELECT_EXPORT = """
+      select s.id as subject_id, s.subject_name, s.description,
+          q.id as question_id, q.question_text, o.id as option_id, o.option_text, o.is_correct
+      from subjects s
+          left join questions q on q.subject_id = s.id
+          left join options o on o.question_id = q.id
+      %s
+      order by s.id, q.id, o.id
+      """;
+
+  private final JdbcTemplate cursorJdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final TransactionTemplate transactionTemplate;
+  private final QuizService quizService;
+  private final QuestionBulkWriter questionBulkWriter;
+  private final QuestionBankCache questionBankCache;
+
+  public QuestionBankTransferService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      QuizService quizService, QuestionBulkWriter questionBulkWriter, QuestionBankCache questionBankCache,
+      @Value("${quiz.export.chunk-size:500}") int fetchSize) {
+    this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.cursorJdbcTemplate.setFetchSize(fetchSize);
+    this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    this.transactionTemplate = transactionTemplate;
+    this.quizService = quizService;
+    this.questionBulkWriter = questionBulkWriter;
+    this.questionBankCache = questionBankCache;
+  }
+
+  // subjectIds bo‘sh bo‘lsa barcha fanlar eksport qilinadi
+  public void export(List<Long> subjectIds, OutputStream out) throws IOException {
+    boolean filtered = subjectIds != null && !subjectIds.isEmpty();
+    String sql = SELECT_EXPORT.formatted(filtered ? "where s.id = any (?)" : "");
+    QuestionBankArchive.Writer writer = QuestionBankArchive.writer(out);
+    ExportHandler handler = new ExportHandler(writer);
+
+    try {
+      readOnlyTransaction.executeWithoutResult(status -> cursorJdbcTemplate.query(connection -> {
+        var statement = connection.prepareStatement(sql);
+        if (filtered) {
+          statement.setArray(1, connection.createArrayOf("bigint", subjectIds.toArray()));
+        }
+        return statement;
+      }, handler));
+      handler.flushQuestion();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.finish();
+    log.info("Savol banki eksport qilindi: {} ta fan, {} ta savol", handler.subjects, handler.questions);
+  }
+
+  // Fanlar nomi bo‘yicha topiladi yoki yaratiladi va chatId foydalanuvchisiga bog‘lanadi (DOCX yuklash kabi).
+  // Fayl buzilgan bo‘lsa hech narsa saqlanmaydi
+  public BankImportResultDto importArchive(InputStream input, Long chatId, String userName) throws IOException {
+    ImportSink sink = new ImportSink(chatId, userName);
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        try {
+          QuestionBankArchive.read(input, sink);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        sink.flush();
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      // Bekor qilingan importda ham keshlangan bank qaytadan yuklanadi, bu zararsiz
+      sink.subjectIds.forEach(questionBankCache::invalidate);
+    }
+    log.info("Savol banki import qilindi: {} ta fan, {} ta savol, {} ta variant",
+        sink.subjectIds.size(), sink.questions, sink.options);
+    return new BankImportResultDto(new ArrayList<>(sink.subjectIds), sink.questions, sink.options);
+  }
+
+  private static final class ExportHandler implements RowCallbackHandler {
+
+    private final QuestionBankArchive.Writer writer;
+    private long subjectId = -1;
+    private QuestionResponseDto question;
+    private long subjects;
+    private long questions;
+
+    private ExportHandler(QuestionBankArchive.Writer writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      long rowSubjectId = rs.getLong("subject_id");
+      if (rowSubjectId != subjectId) {
+        flushQuestion();
+        String name = rs.getString("subject_name");
+        String description = rs.getString("description");
+        write(() -> writer.subject(name, description));
+        subjectId = rowSubjectId;
+        subjects++;
+      }
+
+      long questionId = rs.getLong("question_id");
+      if (rs.wasNull()) {
+        return; // savolsiz fan
+      }
+      if (question == null || question.getId() != questionId) {
+        flushQuestion();
+        question = new QuestionResponseDto(questionId, rs.getString("question_text"), new ArrayList<>());
+      }
+      long optionId = rs.getLong("option_id");
+      if (!rs.wasNull()) {
+        question.getOptions().add(
+            new OptionResponseDto(optionId, rs.getString("option_text"), rs.getBoolean("is_correct")));
+      }
+    }
+
+    private void flushQuestion() {
+      if (question == null) {
+        return;
+      }
+      QuestionResponseDto current = question;
+      question = null;
+      write(() -> writer.question(current));
+      questions++;
+    }
+
+    // Klient ulanishni uzsa so‘rov va tranzaksiya to‘xtatiladi
+    private static void write(IoAction action) {
+      try {
+        action.run();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private interface IoAction {
+
+    void run() throws IOException;
+  }
+
+  private final class ImportSink implements QuestionBankArchive.Sink {
+
+    private final Long chatId;
+    private final String userName;
+    private final Set<Long> subjectIds = new LinkedHashSet<>();
+    private final List<QuestionResponseDto> pending = new ArrayList<>(QuestionBulkWriter.CHUNK_SIZE);
+    private Long subjectId;
+    private long questions;
+    private long options;
+
+    private ImportSink(Long chatId, String userName) {
+      this.chatId = chatId;
+      this.userName = userName;
+    }
+
+    @Override
+    public void subject(String name, String description) {
+      flush();
+      subjectId = quizService.addSubjectAndUser(name, description, chatId, userName).getId();
+      subjectIds.add(subjectId);
+    }
+
+    @Override
+    public void question(QuestionResponseDto question) {
+      pending.add(question);
+      questions++;
+      options += question.getOptions().size();
+      if (pending.size() >= QuestionBulkWriter.CHUNK_SIZE) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      if (!pending.isEmpty()) {
+        questionBulkWriter.insert(subjectId, pending);
+        pending.clear();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.smart.quiz;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// Savol tartib raqamlari (SubjectSections.questionIds indeksi) to‘plami. Xotirada oddiy bitset;
+// bazaga ikki ko‘rinishdan qaysi biri kichik bo‘lsa o‘sha yoziladi (Roaring konteynerlari kabi):
+//   1 - siyrak: ketma-ket raqamlar orasidagi farqlar varint ko‘rinishida (odatda 1 bayt/raqam)
+//   2 - zich: bitset so‘zlari, oxiridagi nol so‘zlarsiz
+// Bo‘sh to‘plam 0 bayt. Thread-safe emas, chaqiruvchi sinxronlaydi.
+public final class QuestionBitmap {
+
+  private static final byte FORMAT_DELTAS = 1;
+  private static final byte FORMAT_WORDS = 2;
+
+  private long[] words;
+
+  public QuestionBitmap() {
+    this.words = new long[0];
+  }
+
+  private QuestionBitmap(long[] words) {
+    this.words = words;
+  }
+
+  public boolean get(int ordinal) {
+    int word = ordinal >>> 6;
+    return word < words.length && (words[word] & (1L << ordinal)) != 0;
+  }
+
+  public void set(int ordinal) {
+    int word = ordinal >>> 6;
+    if (word >= words.length) {
+      words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+    }
+    words[word] |= 1L << ordinal;
+  }
+
+  public void clear(int ordinal) {
+    int word = ordinal >>> 6;
+    if (word < words.length) {
+      words[word] &= ~(1L << ordinal);
+    }
+  }
+
+  public int cardinality() {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  // from dan boshlab birinchi belgilangan raqam, bo‘lmasa -1
+  public int nextSetBit(int from) {
+    int word = from >>> 6;
+    if (word >= words.length) {
+      return -1;
+    }
+    long bits = words[word] & (-1L << from);
+    while (true) {
+      if (bits != 0) {
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+      }
+      if (++word == words.length) {
+        return -1;
+      }
+      bits = words[word];
+    }
+  }
+
+  public byte[] toBytes() {
+    int usedWords = words.length;
+    while (usedWords > 0 && words[usedWords - 1] == 0) {
+      usedWords--;
+    }
+    if (usedWords == 0) {
+      return new byte[0];
+    }
+
+    int deltaBytes = 1;
+    int previous = -1;
+    for (int ordinal = nextSetBit(0); ordinal >= 0; ordinal = nextSetBit(ordinal + 1)) {
+      deltaBytes += varintLength(ordinal - previous - 1);
+      previous = ordinal;
+    }
+
+    if (deltaBytes <= 1 + usedWords * Long.BYTES) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(deltaBytes);
+      out.write(FORMAT_DELTAS);
+      previous = -1;
+      for (int ordinal = nextSetBit(0); ordinal >= 0; ordinal = nextSetBit(ordinal + 1)) {
+        writeVarint(out, ordinal - previous - 1);
+        previous = ordinal;
+      }
+      return out.toByteArray();
+    }
+
+    byte[] bytes = new byte[1 + usedWords * Long.BYTES];
+    bytes[0] = FORMAT_WORDS;
+    for (int i = 0; i < usedWords; i++) {
+      long word = words[i];
+      for (int b = 0; b < Long.BYTES; b++) {
+        bytes[1 + i * Long.BYTES + b] = (byte) (word >>> (b * 8));
+      }
+    }
+    return bytes;
+  }
+
+  public static QuestionBitmap fromBytes(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return new QuestionBitmap();
+    }
+    if (bytes[0] == FORMAT_WORDS) {
+      long[] words = new long[(bytes.length - 1) / Long.BYTES];
+      for (int i = 0; i < words.length; i++) {
+        long word = 0;
+        for (int b = 0; b < Long.BYTES; b++) {
+          word |= (bytes[1 + i * Long.BYTES + b] & 0xFFL) << (b * 8);
+        }
+        words[i] = word;
+      }
+      return new QuestionBitmap(words);
+    }
+    if (bytes[0] != FORMAT_DELTAS) {
+      throw new IllegalArgumentException("Noma’lum bitmap formati: " + bytes[0]);
+    }
+
+    QuestionBitmap bitmap = new QuestionBitmap();
+    int ordinal = -1;
+    int position = 1;
+    while (position < bytes.length) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position++];
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      ordinal += delta + 1;
+      bitmap.set(ordinal);
+    }
+    return bitmap;
+  }
+
+  private static int varintLength(int value) {
+    return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : value < (1 << 21) ? 3 : value < (1 << 28) ? 4 : 5;
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Savollar va variantlarni JDBC batch orqali yozadi (reWriteBatchedInserts bilan ko‘p qatorli INSERT).
+// IDlar identity sequence'dan bir so‘rovda blok qilib olinadi, shuning uchun Hibernate IDENTITY cheklovi yo‘q.
+// Bir fanga savol qo‘shish fan bo‘yicha advisory lock ostida (tranzaksiya oxirigacha): keyingi tranzaksiya
+// IDlarni faqat oldingisi commit bo‘lgandan keyin oladi. Shuning uchun fanga yangi savollar doim mavjudlaridan
+// katta ID bilan qo‘shiladi va id bo‘yicha tartib raqami (SubjectSections.ordinal, xatolar bitmap'i) siljimaydi.
+@Repository
+@RequiredArgsConstructor
+public class QuestionBulkWriter {
+
+  static final int CHUNK_SIZE = 1_000;
+
+  // Boshqa advisory lock'lar bilan to‘qnashmasligi uchun birinchi kalit
+  private static final int SUBJECT_APPEND_LOCK = 0x51_42_41_50;
+  private static final String LOCK_SUBJECT = "select pg_advisory_xact_lock(?, ?)";
+  private static final String RESERVE_IDS =
+      "select nextval(pg_get_serial_sequence(?, 'id')) from generate_series(1, ?)";
+  private static final String INSERT_QUESTION =
+      "insert into questions (id, question_text, subject_id) values (?, ?, ?)";
+  private static final String INSERT_OPTION =
+      "insert into options (id, option_text, is_correct, question_id) values (?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  // Chaqiruvchi tranzaksiyasi ichida ishlaydi
+  public int insert(Long subjectId, List<QuestionResponseDto> questions) {
+    lockSubject(subjectId);
+    for (int from = 0; from < questions.size(); from += CHUNK_SIZE) {
+      insertChunk(subjectId, questions.subList(from, Math.min(from + CHUNK_SIZE, questions.size())));
+    }
+    return questions.size();
+  }
+
+  private void insertChunk(Long subjectId, List<QuestionResponseDto> chunk) {
+    int optionCount = 0;
+    for (QuestionResponseDto question : chunk) {
+      optionCount += question.getOptions().size();
+    }
+
+    List<Long> questionIds = reserveIds("questions", chunk.size());
+    List<Long> optionIds = reserveIds("options", optionCount);
+
+    List<Object[]> questionRows = new ArrayList<>(chunk.size());
+    List<Object[]> optionRows = new ArrayList<>(optionCount);
+    int optionIndex = 0;
+    for (int i = 0; i < chunk.size(); i++) {
+      QuestionResponseDto question = chunk.get(i);
+      Long questionId = questionIds.get(i);
+      questionRows.add(new Object[]{questionId, question.getQuestionText(), subjectId});
+      for (OptionResponseDto option : question.getOptions()) {
+        optionRows.add(new Object[]{optionIds.get(optionIndex++), option.getOptionText(), option.isCorrect(), questionId});
+      }
+    }
+
+    jdbcTemplate.batchUpdate(INSERT_QUESTION, questionRows);
+    jdbcTemplate.batchUpdate(INSERT_OPTION, optionRows);
+  }
+
+  // Fanga savol qo‘shadigan har qanday yo‘l (batch yoki bitta savol) IDni olishdan oldin chaqiradi.
+  // Lock tranzaksiya tugaguncha turadi va bir tranzaksiyada qayta olinishi mumkin
+  public void lockSubject(long subjectId) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException("Fanga savol qo‘shish tranzaksiya ichida bo‘lishi kerak: subjectId=" + subjectId);
+    }
+    // Kalit to‘qnashsa ikki fan bir-birini kutadi, xolos
+    int key = (int) (subjectId ^ (subjectId >>> 32));
+    jdbcTemplate.query(LOCK_SUBJECT, rs -> null, SUBJECT_APPEND_LOCK, key);
+  }
+
+  private List<Long> reserveIds(String table, int count) {
+    if (count == 0) {
+      return List.of();
+    }
+    return jdbcTemplate.queryForList(RESERVE_IDS, Long.class, table, count);
+  }
+
+}
@@ -0,0 +1,167 @@
+package com.smart.quiz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionPageDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Savollarni variantlari bilan birga ro‘yxatlash va eksport qilish. Entity'lar yuklanmaydi:
+// sahifa ikki so‘rov bilan (savollar + ularning variantlari) quriladi, eksport esa bitta so‘rovni
+// server tomonidagi kursor orqali qismlab o‘qib, har bir savolni alohida NDJSON qatori qilib yozadi.
+@Service
+public class QuestionExportService {
+
+  public static final int PAGE_MAX = 500;
+
+  private static final String SELECT_PAGE = """
+      select id, question_text from questions
+      where id > ? %s
+      order by id limit ?
+      """;
+  private static final String SELECT_OPTIONS = """
+      select id, question_id, option_text, is_correct from options
+      where question_id = any (?) order by question_id, id
+      """;
+  // Variantsiz savollar ham chiqishi uchun left join; qatorlar savol bo‘yicha ketma-ket keladi
+  private static final String SELECT_EXPORT = """
+      select q.id, q.question_text, o.id as option_id, o.option_text, o.is_correct
+      from questions q left join options o on o.question_id = q.id
+      where true %s
+      order by q.id, o.id
+      """;
+  private static final String SUBJECT_FILTER = "and subject_id = ?";
+  private static final String EXPORT_SUBJECT_FILTER = "and q.subject_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  // Postgres drayveri fetchSize'ni faqat autocommit o‘chiq (tranzaksiya ichida) bo‘lganda kursor sifatida ishlatadi
+  private final JdbcTemplate cursorJdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectWriter lineWriter;
+  private final int chunkSize;
+
+  public QuestionExportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper, @Value("${quiz.export.chunk-size:500}") int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.chunkSize = chunkSize;
+    this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.cursorJdbcTemplate.setFetchSize(chunkSize);
+    this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    this.lineWriter = objectMapper.writerFor(QuestionResponseDto.class);
+  }
+
+  public QuestionPageDto getPage(Long subjectId, long afterId, int limit) {
+    int size = Math.max(1, Math.min(limit, PAGE_MAX));
+    String sql = SELECT_PAGE.formatted(subjectId != null ? SUBJECT_FILTER : "");
+    Object[] args = subjectId != null ? new Object[]{afterId, subjectId, size} : new Object[]{afterId, size};
+
+    Map<Long, QuestionResponseDto> byId = new LinkedHashMap<>();
+    jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+      long id = rs.getLong("id");
+      byId.put(id, new QuestionResponseDto(id, rs.getString("question_text"), new ArrayList<>()));
+    }, args);
+    if (byId.isEmpty()) {
+      return new QuestionPageDto(List.of(), null);
+    }
+
+    jdbcTemplate.query(connection -> {
+      var statement = connection.prepareStatement(SELECT_OPTIONS);
+      statement.setArray(1, connection.createArrayOf("bigint", byId.keySet().toArray()));
+      return statement;
+    }, (RowCallbackHandler) rs -> byId.get(rs.getLong("question_id")).getOptions().add(option(rs)));
+
+    List<QuestionResponseDto> items = new ArrayList<>(byId.values());
+    Long nextAfterId = items.size() == size ? items.get(items.size() - 1).getId() : null;
+    return new QuestionPageDto(items, nextAfterId);
+  }
+
+  // So‘rov oqimida (StreamingResponseBody) chaqiriladi. Xotirada faqat joriy savol turadi,
+  // har chunkSize savoldan keyin javob klientga flush qilinadi.
+  public void export(Long subjectId, OutputStream out) {
+    String sql = SELECT_EXPORT.formatted(subjectId != null ? EXPORT_SUBJECT_FILTER : "");
+    Object[] args = subjectId != null ? new Object[]{subjectId} : new Object[0];
+
+    readOnlyTransaction.executeWithoutResult(status -> {
+      ExportHandler handler = new ExportHandler(out);
+      cursorJdbcTemplate.query(sql, handler, args);
+      handler.finish();
+    });
+  }
+
+  private static OptionResponseDto option(ResultSet rs) throws SQLException {
+    return new OptionResponseDto(rs.getLong("id"), rs.getString("option_text"), rs.getBoolean("is_correct"));
+  }
+
+  private final class ExportHandler implements RowCallbackHandler {
+
+    private final OutputStream out;
+    private QuestionResponseDto current;
+    private int written;
+
+    private ExportHandler(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      long id = rs.getLong("id");
+      if (current == null || current.getId() != id) {
+        write();
+        current = new QuestionResponseDto(id, rs.getString("question_text"), new ArrayList<>());
+      }
+      long optionId = rs.getLong("option_id");
+      if (!rs.wasNull()) {
+        current.getOptions().add(
+            new OptionResponseDto(optionId, rs.getString("option_text"), rs.getBoolean("is_correct")));
+      }
+    }
+
+    private void finish() {
+      write();
+      flush();
+    }
+
+    // Klient ulanishni uzsa IOException keladi: so‘rov (va tranzaksiya) to‘xtatiladi.
+    // Har bir qatorda emas, har chunkSize savoldan keyin flush qilinadi
+    private void write() {
+      if (current == null) {
+        return;
+      }
+      try {
+        // writeValue(OutputStream) oqimni yopib qo‘yadi, shuning uchun qator baytlari alohida yoziladi
+        out.write(lineWriter.writeValueAsBytes(current));
+        out.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      current = null;
+      if (++written % chunkSize == 0) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// $ - savol, # - to‘g‘ri variant. Qatorlar birma-bir beriladi, tayyor savol darhol sink'ga uzatiladi
+public class QuestionParser {
+
+  private static final int MAX_ERRORS = 100;
+
+  private final Consumer<QuestionResponseDto> sink;
+  private final List<String> errors = new ArrayList<>();
+  private QuestionResponseDto currentQuestion;
+  private int questionCount;
+  private int errorCount;
+
+  public QuestionParser(Consumer<QuestionResponseDto> sink) {
+    this.sink = sink;
+  }
+
+  public void accept(String rawLine) {
+    String line = rawLine.trim();
+    if (line.isEmpty()) {
+      return;
+    }
+
+    // Agar yangi savol ($ bilan boshlansa)
+    if (line.startsWith("$")) {
+      // Oldingi savolni ro'yxatga qo'shamiz (agar variantlari 4 ta bo'lsa)
+      if (currentQuestion != null) {
+        if (currentQuestion.getOptions().size() == 4) {
+          emit(currentQuestion);
+        } else {
+          error("Variantlar soni 4 emas: " + currentQuestion.getQuestionText());
+        }
+      }
+
+      // Yangi savolni boshlaymiz
+      currentQuestion = new QuestionResponseDto();
+      currentQuestion.setQuestionText(line.substring(1).trim());
+      currentQuestion.setOptions(new ArrayList<>(4));
+    }
+
+    // Aks holda bu variant bo'lishi mumkin
+    else if (currentQuestion != null && currentQuestion.getOptions().size() < 4) {
+      boolean isCorrect = line.startsWith("#");
+      String optionText = isCorrect ? line.substring(1).trim() : line;
+
+      OptionResponseDto option = new OptionResponseDto();
+      option.setOptionText(optionText);
+      option.setCorrect(isCorrect);
+
+      currentQuestion.getOptions().add(option);
+    }
+
+    // Agar `currentQuestion == null` bo‘lsa — bu yerdan muammo chiqadi
+    else {
+      error("Savol boshlanmasdan oldin variant kelgan: " + line);
+    }
+  }
+
+  public void finish() {
+    // Oxirgi savolni qo‘shamiz
+    if (currentQuestion != null) {
+      if (currentQuestion.getOptions().size() == 4) {
+        emit(currentQuestion);
+      } else {
+        error("Oxirgi savolning variantlari yetarli emas: " + currentQuestion.getQuestionText());
+      }
+      currentQuestion = null;
+    }
+  }
+
+  public List<String> getErrors() {
+    return errors;
+  }
+
+  public int getQuestionCount() {
+    return questionCount;
+  }
+
+  public int getErrorCount() {
+    return errorCount;
+  }
+
+  private void emit(QuestionResponseDto question) {
+    questionCount++;
+    sink.accept(question);
+  }
+
+  // Xatolar ro‘yxati cheksiz o‘smasligi uchun faqat birinchilari saqlanadi
+  private void error(String message) {
+    errorCount++;
+    if (errors.size() < MAX_ERRORS) {
+      errors.add(message);
+    }
+  }
+
+}
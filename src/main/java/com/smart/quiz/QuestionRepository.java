@@ -18,5 +18,15 @@ public interface QuestionRepository extends JpaRepository<QuestionsEntity, Long>
   @Query("SELECT o FROM QuestionsEntity o WHERE o.subject.id = :subjectId")
   Optional<List<QuestionsEntity>> findSubjectById(@Param("subjectId") Long subjectId);
 
+  @Query("SELECT DISTINCT q FROM QuestionsEntity q LEFT JOIN FETCH q.options WHERE q.subject.id = :subjectId ORDER BY q.id")
+  List<QuestionsEntity> findAllWithOptionsBySubjectId(@Param("subjectId") Long subjectId);
+
+  @Query("SELECT q FROM QuestionsEntity q LEFT JOIN FETCH q.options WHERE q.id = :id")
+  Optional<QuestionsEntity> findWithOptionsById(@Param("id") Long id);
+
+  // Faqat IDlar: bo‘limlarni hisoblash uchun entity yuklanmaydi, soni ro‘yxat uzunligidan olinadi
+  @Query("SELECT q.id FROM QuestionsEntity q WHERE q.subject.id = :subjectId ORDER BY q.id")
+  List<Long> findIdsBySubjectId(@Param("subjectId") Long subjectId);
+
   boolean existsById(Long id);
 }
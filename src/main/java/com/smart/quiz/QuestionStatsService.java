@@ -0,0 +1,187 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.QuestionStatsDto;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Har bir savol bo‘yicha urinishlar, to‘g‘ri javoblar va variantlar tanlovi xotiradagi LongAdder'larda sanaladi.
+// Javob berish yo‘li faqat increment qiladi; to‘plangan farqlar davriy ravishda question_stats va
+// question_option_stats jadvallariga batch upsert bilan qo‘shiladi.
+@Slf4j
+@Service
+public class QuestionStatsService {
+
+  private static final String UPSERT_QUESTION = """
+      insert into question_stats (question_id, subject_id, attempts, correct_answers)
+      values (?, ?, ?, ?)
+      on conflict (question_id) do update set
+          attempts = question_stats.attempts + excluded.attempts,
+          correct_answers = question_stats.correct_answers + excluded.correct_answers
+      """;
+  private static final String UPSERT_OPTION = """
+      insert into question_option_stats (question_id, option_index, picks)
+      values (?, ?, ?)
+      on conflict (question_id, option_index) do update set
+          picks = question_option_stats.picks + excluded.picks
+      """;
+  private static final String SELECT_RANKED = """
+      select qs.question_id, q.question_text, qs.attempts, qs.correct_answers
+      from question_stats qs join questions q on q.id = qs.question_id
+      where qs.subject_id = ? and qs.attempts >= ?
+      order by qs.correct_answers::float8 / qs.attempts %s, qs.attempts desc
+      limit ?
+      """;
+  private static final String SELECT_OPTIONS = """
+      select question_id, option_index, picks from question_option_stats
+      where question_id = any (?) order by question_id, option_index
+      """;
+
+  private static final class Counters {
+
+    private final long subjectId;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    private final LongAdder[] picks;
+
+    private Counters(long subjectId, int optionCount) {
+      this.subjectId = subjectId;
+      this.picks = new LongAdder[optionCount];
+      for (int i = 0; i < optionCount; i++) {
+        picks[i] = new LongAdder();
+      }
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ConcurrentHashMap<Long, Counters> counters = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+
+  public QuestionStatsService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      @Value("${quiz.question-stats.flush-interval-ms:5000}") long flushIntervalMs) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "question-stats-flusher"));
+    this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  // Tartib muhim: attempts birinchi (flush uni oxirida o‘qiydi)
+  public void record(long subjectId, long questionId, int optionCount, int selectedOption, boolean isCorrect) {
+    Counters question = counters.get(questionId);
+    if (question == null) {
+      question = counters.computeIfAbsent(questionId, id -> new Counters(subjectId, optionCount));
+    }
+    question.attempts.increment();
+    if (isCorrect) {
+      question.correct.increment();
+    }
+    if (selectedOption >= 0 && selectedOption < question.picks.length) {
+      question.picks[selectedOption].increment();
+    }
+  }
+
+  // hardest = true: to‘g‘ri javob ulushi eng past savollar birinchi
+  public List<QuestionStatsDto> getRanked(Long subjectId, boolean hardest, int minAttempts, int limit) {
+    List<QuestionStatsDto> result = jdbcTemplate.query(SELECT_RANKED.formatted(hardest ? "asc" : "desc"),
+        (rs, rowNum) -> {
+          long attempts = rs.getLong("attempts");
+          long correct = rs.getLong("correct_answers");
+          return new QuestionStatsDto(rs.getLong("question_id"), rs.getString("question_text"), attempts, correct,
+              attempts > 0 ? (double) correct / attempts : 0.0, new ArrayList<>());
+        }, subjectId, minAttempts, limit);
+    if (result.isEmpty()) {
+      return result;
+    }
+
+    Map<Long, QuestionStatsDto> byId = new HashMap<>();
+    for (QuestionStatsDto dto : result) {
+      byId.put(dto.getQuestionId(), dto);
+    }
+    jdbcTemplate.query(connection -> {
+      var statement = connection.prepareStatement(SELECT_OPTIONS);
+      statement.setArray(1, connection.createArrayOf("bigint", byId.keySet().toArray()));
+      return statement;
+    }, rs -> {
+      List<Long> picks = byId.get(rs.getLong("question_id")).getOptionPicks();
+      int index = rs.getInt("option_index");
+      while (picks.size() < index) {
+        picks.add(0L);
+      }
+      picks.add(rs.getLong("picks"));
+    });
+    return result;
+  }
+
+  // Flusher oqimida. Hisoblagichlar nolga qaytariladi; yozib bo‘lmasa farqlar qayta qo‘shiladi
+  void flush() {
+    List<Object[]> questionRows = new ArrayList<>();
+    List<Object[]> optionRows = new ArrayList<>();
+    for (Map.Entry<Long, Counters> entry : counters.entrySet()) {
+      Counters question = entry.getValue();
+      // record() avval attempts'ni oshiradi. Shu sababli correct va picks attempts'dan oldin olinadi:
+      // orada kelgan javobning faqat urinishi shu batch'ga tushishi mumkin, to‘g‘ri javobi esa urinishisiz emas,
+      // ya'ni correct_answers hech qachon attempts'dan oshmaydi
+      long correct = question.correct.sumThenReset();
+      long[] picks = new long[question.picks.length];
+      for (int i = 0; i < picks.length; i++) {
+        picks[i] = question.picks[i].sumThenReset();
+      }
+      long attempts = question.attempts.sumThenReset();
+      if (attempts == 0) {
+        continue; // correct va picks ham 0: ular faqat urinishdan keyin oshadi
+      }
+      questionRows.add(new Object[]{entry.getKey(), question.subjectId, attempts, correct});
+      for (int i = 0; i < picks.length; i++) {
+        if (picks[i] > 0) {
+          optionRows.add(new Object[]{entry.getKey(), i, picks[i]});
+        }
+      }
+    }
+    if (questionRows.isEmpty()) {
+      return;
+    }
+
+    try {
+      // Ikkala jadval bitta tranzaksiyada: xatoda farqlar ikki marta qo‘shilmaydi
+      transactionTemplate.executeWithoutResult(status -> {
+        jdbcTemplate.batchUpdate(UPSERT_QUESTION, questionRows);
+        jdbcTemplate.batchUpdate(UPSERT_OPTION, optionRows);
+      });
+    } catch (RuntimeException e) {
+      log.error("Savol statistikasini saqlab bo‘lmadi ({} ta savol): {}", questionRows.size(), e.getMessage());
+      restore(questionRows, optionRows);
+    }
+  }
+
+  private void restore(List<Object[]> questionRows, List<Object[]> optionRows) {
+    for (Object[] row : questionRows) {
+      Counters question = counters.get((Long) row[0]);
+      question.attempts.add((Long) row[2]);
+      question.correct.add((Long) row[3]);
+    }
+    for (Object[] row : optionRows) {
+      counters.get((Long) row[0]).picks[(Integer) row[1]].add((Long) row[2]);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flush();
+  }
+
+}
@@ -1,10 +1,17 @@
 package com.smart.quiz;
 
+import com.smart.quiz.dto.BankImportResultDto;
+import com.smart.quiz.dto.LeaderboardDto;
+import com.smart.quiz.dto.QuestionPageDto;
 import com.smart.quiz.dto.QuestionResponseDto;
+import com.smart.quiz.dto.QuestionStatsDto;
 import com.smart.quiz.dto.QuestionsEntity;
 import com.smart.quiz.dto.SubjectEntity;
 import com.smart.quiz.dto.SubjectRequestDto;
+import com.smart.quiz.dto.UploadJobDto;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RequestMapping("v1/quiz")
 public interface QuizApi {
@@ -26,8 +34,14 @@ public interface QuizApi {
       @RequestBody SubjectRequestDto subject
   );
 
+  // Keyset sahifalash: keyingi sahifa uchun javobdagi nextAfterId afterId sifatida yuboriladi
   @GetMapping("/all")
-  ResponseEntity<List<QuestionsEntity>> getAllQuestions();
+  ResponseEntity<QuestionPageDto> getAllQuestions(@RequestParam(required = false) Long subjectId,
+      @RequestParam(defaultValue = "0") long afterId, @RequestParam(defaultValue = "100") int limit);
+
+  // Har bir qator bitta savol (variantlari bilan); javob butun jadval o‘qilishini kutmasdan oqim bilan yuboriladi
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  ResponseEntity<StreamingResponseBody> exportQuestions(@RequestParam(required = false) Long subjectId);
 
   @GetMapping("/by-id")
   ResponseEntity<QuestionResponseDto> getQuestionById(
@@ -42,7 +56,31 @@ public interface QuizApi {
   @PostMapping(value = "/upload-document",
       produces = MediaType.APPLICATION_JSON_VALUE,
       consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-  ResponseEntity<String> uploadFile(@RequestPart("file") MultipartFile file, @RequestParam String subject, @RequestParam String subDesc, @RequestParam Long chatId, @RequestParam String userName);
+  ResponseEntity<UploadJobDto> uploadFile(@RequestPart("file") MultipartFile file, @RequestParam String subject, @RequestParam String subDesc, @RequestParam Long chatId, @RequestParam String userName);
+
+  @GetMapping("/upload-status/{jobId}")
+  ResponseEntity<UploadJobDto> getUploadStatus(@PathVariable Long jobId);
+
+  @GetMapping("/leaderboard/{subjectId}")
+  ResponseEntity<LeaderboardDto> getLeaderboard(@PathVariable Long subjectId,
+      @RequestParam(required = false) Long userId, @RequestParam(defaultValue = "10") int limit);
+
+  // order: hardest (to‘g‘ri javob ulushi eng past) yoki easiest
+  @GetMapping("/question-stats/{subjectId}")
+  ResponseEntity<List<QuestionStatsDto>> getQuestionStats(@PathVariable Long subjectId,
+      @RequestParam(defaultValue = "hardest") String order, @RequestParam(defaultValue = "10") int limit,
+      @RequestParam(defaultValue = "5") int minAttempts);
+
+  // Fanlar, savollar va variantlar QuestionBankArchive formatida (GZIP); subjectIds bo‘sh bo‘lsa hammasi
+  @GetMapping(value = "/bank/export", produces = QuestionBankArchive.CONTENT_TYPE)
+  ResponseEntity<StreamingResponseBody> exportBank(@RequestParam(required = false) List<Long> subjectIds);
+
+  // So‘rov tanasi /bank/export javobining o‘zi; multipart emas, shuning uchun fayl hajmi chegarasi yo‘q
+  @PostMapping(value = "/bank/import",
+      produces = MediaType.APPLICATION_JSON_VALUE,
+      consumes = {QuestionBankArchive.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  ResponseEntity<BankImportResultDto> importBank(InputStream body, @RequestParam Long chatId,
+      @RequestParam String userName) throws IOException;
 
   @PutMapping("/{id}")
   ResponseEntity<Void> update(@PathVariable Long id, @Valid @RequestBody QuestionsEntity requestDto);
@@ -1,15 +1,29 @@
 package com.smart.quiz;
 
+import com.smart.quiz.dto.BankImportResultDto;
+import com.smart.quiz.dto.LeaderboardDto;
+import com.smart.quiz.dto.QuestionPageDto;
 import com.smart.quiz.dto.QuestionResponseDto;
+import com.smart.quiz.dto.QuestionStatsDto;
 import com.smart.quiz.dto.QuestionsEntity;
 import com.smart.quiz.dto.SubjectEntity;
 import com.smart.quiz.dto.SubjectRequestDto;
+import com.smart.quiz.dto.UploadJobDto;
+import com.smart.quiz.dto.UploadJobEntity;
+import com.smart.quiz.dto.UploadJobStatus;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -17,6 +31,12 @@ import org.springframework.web.multipart.MultipartFile;
 public class QuizController implements QuizApi {
 
   private final QuizService quizService;
+  private final UploadJobService uploadJobService;
+  private final LeaderboardService leaderboardService;
+  private final QuestionStatsService questionStatsService;
+  private final QuestionExportService questionExportService;
+  private final QuestionBankTransferService questionBankTransferService;
+  private final QuizMapper quizMapper;
 
   @Override
   public ResponseEntity<SubjectEntity> addSubject(SubjectRequestDto subject) {
@@ -24,8 +44,15 @@ public class QuizController implements QuizApi {
   }
 
   @Override
-  public ResponseEntity<List<QuestionsEntity>> getAllQuestions() {
-    return ResponseEntity.ok(quizService.getAllQuestions());
+  public ResponseEntity<QuestionPageDto> getAllQuestions(Long subjectId, long afterId, int limit) {
+    return ResponseEntity.ok(questionExportService.getPage(subjectId, afterId, limit));
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> exportQuestions(Long subjectId) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType("application/x-ndjson"))
+        .body(out -> questionExportService.export(subjectId, out));
   }
 
   @Override
@@ -39,14 +66,49 @@ public class QuizController implements QuizApi {
   }
 
   @Override
-  public ResponseEntity<String> uploadFile(MultipartFile file, String subject, String subDesc, Long chatId, String userName) {
+  public ResponseEntity<UploadJobDto> uploadFile(MultipartFile file, String subject, String subDesc, Long chatId, String userName) {
+    // Fayl navbatga qo‘yiladi, natijani /upload-status/{jobId} orqali kuzatish mumkin
+    UploadJobEntity job;
     try {
-      // Faylni qabul qilish va AI orqali ishlash
-      var response = quizService.processFile(file, subject, subDesc, chatId, userName);
-      return ResponseEntity.ok(response);
-    } catch (Exception e) {
-      return ResponseEntity.badRequest().body("Xatolik: " + e.getMessage());
+      job = uploadJobService.submit(file, subject, subDesc, chatId, userName);
+    } catch (IOException e) {
+      throw new RuntimeException("Faylni o‘qishda xatolik yuz berdi.", e);
     }
+    HttpStatus status = job.getStatus() == UploadJobStatus.FAILED ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.ACCEPTED;
+    return ResponseEntity.status(status).body(quizMapper.toUploadJobDto(job));
+  }
+
+  @Override
+  public ResponseEntity<UploadJobDto> getUploadStatus(Long jobId) {
+    return ResponseEntity.ok(quizMapper.toUploadJobDto(uploadJobService.getJob(jobId)));
+  }
+
+  @Override
+  public ResponseEntity<LeaderboardDto> getLeaderboard(Long subjectId, Long userId, int limit) {
+    return ResponseEntity.ok(leaderboardService.getLeaderboard(subjectId, userId, Math.max(1, Math.min(limit, 100))));
+  }
+
+  @Override
+  public ResponseEntity<List<QuestionStatsDto>> getQuestionStats(Long subjectId, String order, int limit,
+      int minAttempts) {
+    boolean hardest = !"easiest".equalsIgnoreCase(order);
+    return ResponseEntity.ok(questionStatsService.getRanked(subjectId, hardest, Math.max(1, minAttempts),
+        Math.max(1, Math.min(limit, 100))));
+  }
+
+  @Override
+  public ResponseEntity<StreamingResponseBody> exportBank(List<Long> subjectIds) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(QuestionBankArchive.CONTENT_TYPE))
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("quiz-bank" + QuestionBankArchive.FILE_EXTENSION).build().toString())
+        .body(out -> questionBankTransferService.export(subjectIds, out));
+  }
+
+  @Override
+  public ResponseEntity<BankImportResultDto> importBank(InputStream body, Long chatId, String userName)
+      throws IOException {
+    return ResponseEntity.ok(questionBankTransferService.importArchive(body, chatId, userName));
   }
 
   @Override
@@ -2,6 +2,8 @@ package com.smart.quiz;
 
 import com.smart.quiz.dto.SubjectEntity;
 import com.smart.quiz.dto.SubjectRequestDto;
+import com.smart.quiz.dto.UploadJobDto;
+import com.smart.quiz.dto.UploadJobEntity;
 import static org.mapstruct.ap.internal.gem.MappingConstantsGem.ComponentModelGem.SPRING;
 
 import com.smart.quiz.dto.OptionResponseDto;
@@ -18,4 +20,6 @@ public interface QuizMapper {
   @Mapping(target = "id", ignore = true)
   @Mapping(target = "users", ignore = true)
   SubjectEntity toSubjectEntity(SubjectRequestDto subjectRequestDto);
+
+  UploadJobDto toUploadJobDto(UploadJobEntity uploadJobEntity);
 }
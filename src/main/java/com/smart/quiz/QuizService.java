@@ -1,30 +1,39 @@
 package com.smart.quiz;
 
+import com.smart.quiz.dto.QuestionBank;
+import com.smart.quiz.dto.QuestionParseResult;
 import com.smart.quiz.dto.QuestionResponseDto;
 import com.smart.quiz.dto.QuestionsEntity;
 import com.smart.quiz.dto.StatsEntity;
 import com.smart.quiz.dto.SubjectEntity;
 import com.smart.quiz.dto.SubjectRequestDto;
+import com.smart.quiz.dto.SubjectSections;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface QuizService {
 
-  List<QuestionsEntity> getAllQuestions();
-
   QuestionResponseDto getQuestionById(Long id);
 
+  QuestionBank getQuestionBank(Long subjectId);
+
+  SubjectSections getSubjectSections(Long subjectId);
+
   QuestionsEntity addQuestion(QuestionsEntity question);
 
   String processFile(MultipartFile file, String subject, String subDesc, Long chatId, String userName);
 
+  String processDocument(InputStream input, String fileName, String subject, String subDesc, Long chatId, String userName);
+
+  QuestionParseResult parseDocument(InputStream input, String fileName) throws IOException;
+
   void saveQuestionsToDatabase(List<QuestionResponseDto> questions, String subject, String subDesc, Long chatId, String userName);
 
   void update(Long id, QuestionsEntity requestDto);
 
-  List<Long> getAllQuestionIds();
-
   SubjectEntity addSubject(SubjectRequestDto subjectEntity);
 
   List<SubjectEntity> getAllSubjects(Long chatId);
@@ -1,31 +1,34 @@
 package com.smart.quiz;
 
 import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionBank;
 import com.smart.quiz.dto.QuestionParseResult;
 import com.smart.quiz.dto.QuestionResponseDto;
 import com.smart.quiz.dto.QuestionsEntity;
 import com.smart.quiz.dto.StatsEntity;
 import com.smart.quiz.dto.SubjectEntity;
 import com.smart.quiz.dto.SubjectRequestDto;
+import com.smart.quiz.dto.SubjectSections;
 import com.smart.quiz.dto.UserEntity;
 import com.smart.quiz.exception.InvalidFileFormatException;
 import com.smart.quiz.exception.ResourceNotFoundException;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+// Har bir public metod quiz.service taymerida (class, method, exception teglari bilan) o‘lchanadi
+@Timed(value = "quiz.service", histogram = true)
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -37,17 +40,17 @@ public class QuizServiceImpl implements QuizService {
   private final Utils utils;
   private final UsersRepository usersRepository;
   private final StatsRepository statsRepository;
-
-  @Override
-  public List<QuestionsEntity> getAllQuestions() {
-    return questionRepository.findAll();
-  }
+  private final StatsWriter statsWriter;
+  private final QuestionBankCache questionBankCache;
+  private final QuestionBulkWriter questionBulkWriter;
+  private final TransactionTemplate transactionTemplate;
 
   @Transactional
   @Override
   public QuestionResponseDto getQuestionById(Long id) {
 
-    var question = questionRepository.findById(id).orElseGet(QuestionsEntity::new);
+    // Variantlar bitta so‘rovda olinadi (lazy options uchun alohida SELECT bo‘lmasin)
+    var question = questionRepository.findWithOptionsById(id).orElseGet(QuestionsEntity::new);
     var dto = new QuestionResponseDto();
     dto.setId(question.getId());
     dto.setQuestionText(question.getQuestionText());
@@ -60,16 +63,45 @@ public class QuizServiceImpl implements QuizService {
     return dto;
   }
 
+  @Override
+  public QuestionBank getQuestionBank(Long subjectId) {
+    return questionBankCache.get(subjectId);
+  }
+
+  @Override
+  public SubjectSections getSubjectSections(Long subjectId) {
+    return questionBankCache.getSections(subjectId);
+  }
+
   @Override
   public QuestionsEntity addQuestion(QuestionsEntity question) {
-    return questionRepository.save(question);
+    // IDENTITY insert save() ichida bajariladi: fan lock'i ostida, bulk yozuv bilan bir xil tartibda
+    var saved = transactionTemplate.execute(status -> {
+      if (question.getSubject() != null && question.getSubject().getId() != null) {
+        questionBulkWriter.lockSubject(question.getSubject().getId());
+      }
+      return questionRepository.save(question);
+    });
+    if (saved.getSubject() != null) {
+      questionBankCache.invalidate(saved.getSubject().getId());
+    }
+    return saved;
   }
 
   @Override
   public String processFile(MultipartFile file, String subject, String subDesc, Long chatId, String userName) throws RuntimeException {
+    try (InputStream inputStream = file.getInputStream()) {
+      return processDocument(inputStream, file.getOriginalFilename(), subject, subDesc, chatId, userName);
+    } catch (IOException e) {
+      throw new RuntimeException("Faylni o‘qishda xatolik yuz berdi.", e);
+    }
+  }
+
+  @Override
+  public String processDocument(InputStream input, String fileName, String subject, String subDesc, Long chatId, String userName) {
     List<QuestionResponseDto> questions;
     try {
-      QuestionParseResult result = readQuestionsFromDocx(file);
+      QuestionParseResult result = parseDocument(input, fileName);
       questions = result.getQuestions();
 
     } catch (IOException e) {
@@ -81,9 +113,9 @@ public class QuizServiceImpl implements QuizService {
     return "Fayl muvaffaqiyatli yuklandi va savollar bazaga saqlandi!";
   }
 
-  private QuestionParseResult readQuestionsFromDocx(MultipartFile file) throws IOException {
+  @Override
+  public QuestionParseResult parseDocument(InputStream input, String originalFilename) throws IOException {
     // 1. Fayl nomini tekshirish
-    String originalFilename = file.getOriginalFilename();
     if (originalFilename == null || !originalFilename.toLowerCase().endsWith(".docx")) {
       throw new InvalidFileFormatException(
           "Noto'g'ri fayl formati",
@@ -95,128 +127,46 @@ public class QuizServiceImpl implements QuizService {
       );
     }
 
-    // 2. Fayl tarkibini tekshirish (magic number)
-    try (InputStream inputStream = file.getInputStream()) {
-      byte[] header = new byte[4];
-      if (inputStream.read(header) != 4 ||
-          !Arrays.equals(header, new byte[]{0x50, 0x4B, 0x03, 0x04})) {
-        throw new InvalidFileFormatException(
-            "Fayl tarkibi noto'g'ri",
-            List.of(
-                "Fayl .docx formatida emas yoki buzilgan",
-                "Haqiqiy .docx fayl yuboring"
-            )
-        );
-      }
-    }
-
-    // 3. Asosiy qayta ishlash
-    List<String> lines = new ArrayList<>();
-    try (InputStream inputStream = file.getInputStream();
-        XWPFDocument doc = new XWPFDocument(inputStream)) {
-
-      for (XWPFParagraph paragraph : doc.getParagraphs()) {
-        String text = paragraph.getText().trim();
-        if (!text.isEmpty()) {
-          lines.add(text);
-        }
-      }
-    } catch (Exception e) {
-      throw new InvalidFileFormatException(
-          "DOCX faylni o'qib bo'lmadi",
-          List.of(
-              "Fayl buzilgan yoki parol bilan himoyalangan bo'lishi mumkin",
-              "Xato tafsiloti: " + e.getMessage()
-          )
-      );
-    }
+    // 2. Bitta o‘tishda: magic number, zip chegaralari va paragraflar oqimi savol parseriga uzatiladi
+    List<QuestionResponseDto> questions = new ArrayList<>();
+    QuestionParser parser = new QuestionParser(questions::add);
+    DocxParagraphReader.read(input, parser::accept);
+    parser.finish();
 
-    return parseQuestions(lines);
+    return new QuestionParseResult(questions, parser.getErrors());
   }
 
   public QuestionParseResult parseQuestions(List<String> lines) {
     List<QuestionResponseDto> questions = new ArrayList<>();
-    List<String> errorLines = new ArrayList<>();
-    QuestionResponseDto currentQuestion = null;
-
-    for (String rawLine : lines) {
-      String line = rawLine.trim();
-      if (line.isEmpty()) continue;
-
-      // Agar yangi savol ($ bilan boshlansa)
-      if (line.startsWith("$")) {
-        // Oldingi savolni ro'yxatga qo'shamiz (agar variantlari 4 ta bo'lsa)
-        if (currentQuestion != null) {
-          if (currentQuestion.getOptions().size() == 4) {
-            questions.add(currentQuestion);
-          } else {
-            errorLines.add("Variantlar soni 4 emas: " + currentQuestion.getQuestionText());
-          }
-        }
-
-        // Yangi savolni boshlaymiz
-        currentQuestion = new QuestionResponseDto();
-        currentQuestion.setQuestionText(line.substring(1).trim());
-        currentQuestion.setOptions(new ArrayList<>());
-      }
-
-      // Aks holda bu variant bo'lishi mumkin
-      else if (currentQuestion != null && currentQuestion.getOptions().size() < 4) {
-        boolean isCorrect = line.startsWith("#");
-        String optionText = isCorrect ? line.substring(1).trim() : line;
-
-        OptionResponseDto option = new OptionResponseDto();
-        option.setOptionText(optionText);
-        option.setCorrect(isCorrect);
-
-        currentQuestion.getOptions().add(option);
-      }
-
-      // Agar `currentQuestion == null` bo‘lsa — bu yerdan muammo chiqadi
-      else {
-        errorLines.add("Savol boshlanmasdan oldin variant kelgan: " + line);
-      }
-    }
-
-    // Oxirgi savolni qo‘shamiz
-    if (currentQuestion != null) {
-      if (currentQuestion.getOptions().size() == 4) {
-        questions.add(currentQuestion);
-      } else {
-        errorLines.add("Oxirgi savolning variantlari yetarli emas: " + currentQuestion.getQuestionText());
-      }
-    }
-
-    return new QuestionParseResult(questions, errorLines);
+    QuestionParser parser = new QuestionParser(questions::add);
+    lines.forEach(parser::accept);
+    parser.finish();
+    return new QuestionParseResult(questions, parser.getErrors());
   }
 
   @Override
   public void saveQuestionsToDatabase(List<QuestionResponseDto> questions, String subject, String subDesc, Long chatId, String userName) {
-    var subjectEntity = addSubjectAndUser(subject, subDesc, chatId, userName);
-
-    // 1. Savollarni saqlash
-    for (QuestionResponseDto questionDto : questions) {
-      var questionEntity = new QuestionsEntity();
-      questionEntity.setQuestionText(questionDto.getQuestionText());
-      questionEntity.setSubject(subjectEntity);
-
-      // 2. Variantlarni yaratish va shuffle qilish
-      List<OptionResponseDto> options = questionDto.getOptions().stream()
-          .map(optionDto -> {
-            var option = new OptionResponseDto();
-            option.setOptionText(optionDto.getOptionText());
-            option.setCorrect(optionDto.isCorrect());
-            return option;
-          })
-          .collect(Collectors.toList());
-
-      Collections.shuffle(options); // Variantlarni aralashtirish
-      questionEntity.setOptions(quizMapper.toEntity(options));
-      questionRepository.save(questionEntity);
-    }
+    // processFile ichidan ham chaqiriladi, shuning uchun tranzaksiya aniq ochiladi
+    var subjectEntity = transactionTemplate.execute(status -> {
+      var savedSubject = addSubjectAndUser(subject, subDesc, chatId, userName);
+
+      // 1. Variantlarni aralashtirish
+      for (QuestionResponseDto questionDto : questions) {
+        List<OptionResponseDto> options = new ArrayList<>(questionDto.getOptions());
+        Collections.shuffle(options);
+        questionDto.setOptions(options);
+      }
+
+      // 2. Savollar va variantlarni batch bilan saqlash
+      questionBulkWriter.insert(savedSubject.getId(), questions);
+      return savedSubject;
+    });
 
+    questionBankCache.invalidate(subjectEntity.getId());
   }
 
+  // Bitta tranzaksiyada: foydalanuvchi managed qoladi va save() ajratilgan entity'ni qayta yuklab merge qilmaydi
+  @Transactional
   @Override
   public SubjectEntity addSubjectAndUser(String subject, String subDesc, Long chatId, String userName){
     // 1. Foydalanuvchi chatId bo‘yicha bazadan qidiriladi
@@ -256,12 +206,12 @@ public class QuizServiceImpl implements QuizService {
 
   @Override
   public void addStats(StatsEntity statsEntity) {
-    statsRepository.save(statsEntity);
+    statsWriter.submit(statsEntity);
   }
 
   @Override
   public List<StatsEntity> getAllStatsByUserId(Long userId) {
-    return statsRepository.getByUserId(userId);
+    return statsRepository.findLatest(userId, Limit.unlimited());
   }
 
   @Override
@@ -269,11 +219,7 @@ public class QuizServiceImpl implements QuizService {
     log.info("Updating question with id:{} ", id);
     var entity = findOrFail(id);
     questionRepository.save(entity);
-  }
-
-  @Override
-  public List<Long> getAllQuestionIds() {
-    return questionRepository.findAll().stream().map(QuestionsEntity::getId).toList();
+    questionBankCache.invalidate(entity.getSubject().getId());
   }
 
   @Override
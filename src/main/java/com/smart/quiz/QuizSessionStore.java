@@ -0,0 +1,18 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.QuizState;
+
+// Quiz sessiyalari ombori. Holat chatning o‘z yo‘lagida o‘zgaradi, o‘zgarishdan keyin markDirty chaqiriladi
+public interface QuizSessionStore {
+
+  QuizState get(Long chatId);
+
+  void put(Long chatId, QuizState state);
+
+  // Saqlash darhol emas, fon oqimida bajarilishi mumkin
+  void markDirty(Long chatId);
+
+  QuizState remove(Long chatId);
+
+  int size();
+}
@@ -0,0 +1,70 @@
+package com.smart.quiz;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Hibernate (ddl-auto) qila olmaydigan sxema o‘zgarishlari shu yerda, bitta joyda.
+// Hibernate jadvallarni yaratib bo‘lgandan keyin (entityManagerFactory) va bot update qabul qilishni boshlashidan
+// oldin (bean yaratilayotganda) ishlaydi. Indekslar "concurrently" bilan quriladi: katta jadvalda ham
+// yuklash/import INSERT'lari indeks qurilishini kutmaydi.
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SchemaMigration {
+
+  private static final String COLUMN_TYPE = """
+      select data_type from information_schema.columns
+      where table_schema = current_schema() and table_name = 'stats' and column_name = 'user_id'
+      """;
+  // Oldingi "concurrently" urinishi yarim qolgan bo‘lsa indeks INVALID bo‘lib qoladi va "if not exists" uni o‘tkazib yuboradi
+  private static final String INVALID_INDEX = """
+      select count(*) from pg_index i join pg_class c on c.oid = i.indexrelid
+      where c.relname = ? and c.relnamespace = current_schema()::regnamespace and not i.indisvalid
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @PostConstruct
+  public void migrate() {
+    migrateStatsUserId();
+    // Keyingi sahifa / oxirgi natijalar (StatsRepository.findLatest)
+    createIndex("idx_stats_user_created", "stats (user_id, created_at desc)");
+    // Postgres FK ustunlariga indeks qo‘ymaydi; options.question_id Hibernate'da maydon sifatida yo‘q
+    createIndex("idx_options_question_id", "options (question_id, id)");
+  }
+
+  // stats.user_id avval varchar edi: Long bilan solishtirish indeksni ishlatmasdi.
+  // ddl-auto=update ustun turini o‘zgartirmaydi, shuning uchun bir martalik o‘tkazish shu yerda bajariladi
+  private void migrateStatsUserId() {
+    List<String> types = jdbcTemplate.queryForList(COLUMN_TYPE, String.class);
+    if (types.isEmpty()) {
+      return; // ddl-auto=none va jadval yo‘q
+    }
+    if (!"bigint".equals(types.get(0))) {
+      log.info("stats.user_id {} -> bigint o‘tkazilmoqda", types.get(0));
+      jdbcTemplate.execute("alter table stats alter column user_id type bigint using user_id::bigint");
+    }
+  }
+
+  // "concurrently" tranzaksiya ichida ishlamaydi: JdbcTemplate bu yerda autocommit ulanishda bajaradi
+  private void createIndex(String name, String definition) {
+    try {
+      Integer invalid = jdbcTemplate.queryForObject(INVALID_INDEX, Integer.class, name);
+      if (invalid != null && invalid > 0) {
+        log.warn("{} indeksi yaroqsiz (oldingi qurilish yarim qolgan), qayta quriladi", name);
+        jdbcTemplate.execute("drop index concurrently if exists " + name);
+      }
+      jdbcTemplate.execute("create index concurrently if not exists " + name + " on " + definition);
+    } catch (RuntimeException e) {
+      // Indeks bo‘lmasa ham ilova ishlaydi, faqat sekinroq; keyingi ishga tushishda qayta uriniladi
+      log.error("{} indeksini yaratib bo‘lmadi: {}", name, e.getMessage());
+    }
+  }
+
+}
@@ -1,18 +1,40 @@
 package com.smart.quiz;
 
 import com.smart.quiz.dto.StatsEntity;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+// Barcha so‘rovlar (user_id, created_at desc) indeksi bo‘yicha o‘qiladi; id teng vaqtlarni ajratadi
 @Repository
 public interface StatsRepository extends JpaRepository<StatsEntity, Long> {
 
   @Query("""
   select s from StatsEntity s
     where s.userId = :userId
+    order by s.createdAt desc, s.id desc
   """)
-  List<StatsEntity> getByUserId(Long userId);
+  List<StatsEntity> findLatest(Long userId, Limit limit);
+
+  // Kursordan eskiroq natijalar, yangidan eskiga
+  @Query("""
+  select s from StatsEntity s
+    where s.userId = :userId
+      and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id))
+    order by s.createdAt desc, s.id desc
+  """)
+  List<StatsEntity> findOlder(Long userId, LocalDateTime createdAt, Long id, Limit limit);
+
+  // Kursordan yangiroq natijalar, eskidan yangiga (chaqiruvchi teskari aylantiradi)
+  @Query("""
+  select s from StatsEntity s
+    where s.userId = :userId
+      and (s.createdAt > :createdAt or (s.createdAt = :createdAt and s.id > :id))
+    order by s.createdAt asc, s.id asc
+  """)
+  List<StatsEntity> findNewer(Long userId, LocalDateTime createdAt, Long id, Limit limit);
 
 }
@@ -0,0 +1,242 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.StatsEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Tugagan quiz natijalari chegaralangan navbatga tushadi va fon oqimi ularni JDBC batch bilan yozadi:
+// batch hajmi to‘lganda yoki flush intervali o‘tganda. Fan nomi INSERT ichida subjects jadvalidan olinadi,
+// shuning uchun update oqimi bazaga umuman murojaat qilmaydi.
+// Baza orqada qolsa navbat to‘ladi va submit() chaqiruvchini offer-timeout gacha kutdiradi (backpressure);
+// shundan keyin ham joy bo‘lmasa natija shu oqimning o‘zida yoziladi. Bu yozuv ham muvaffaqiyatsiz bo‘lsa,
+// natija chegaralangan qayta urinish ro‘yxatiga tushadi va fon oqimi uni keyingi batch bilan yozadi;
+// ro‘yxat ham to‘lgan bo‘lsa submit() xato qaytaradi va chaqiruvchi foydalanuvchiga aytadi.
+@Slf4j
+@Component
+public class StatsWriter {
+
+  private static final String INSERT = """
+      insert into stats (user_id, subject_id, subject_name, current_section, total_question,
+          correct_answer_count, wrong_answer_count, correct_percentage, created_at)
+      values (?, ?, coalesce((select s.subject_name from subjects s where s.id = ?), ''), ?, ?, ?, ?, ?, ?)
+      """;
+  private static final long RETRY_DELAY_MS = 1_000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final BlockingQueue<StatsEntity> queue;
+  // Bevosita yozib bo‘lmagan natijalar; fon oqimi ularni navbatdagilardan oldin oladi
+  private final Queue<StatsEntity> retry = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger retryCount = new AtomicInteger();
+  private final int retryCapacity;
+  private final int batchSize;
+  private final long flushIntervalMs;
+  private final long offerTimeoutMs;
+  private final Thread writer;
+  private volatile boolean running = true;
+  // Fon oqimi oxirgi drain'ni boshladi: shundan keyin navbatga tushgan natijani u ko‘rmasligi mumkin
+  private volatile boolean draining;
+
+  public StatsWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+      @Value("${quiz.stats.queue-capacity:10000}") int queueCapacity,
+      @Value("${quiz.stats.batch-size:500}") int batchSize,
+      @Value("${quiz.stats.flush-interval-ms:500}") long flushIntervalMs,
+      @Value("${quiz.stats.offer-timeout-ms:2000}") long offerTimeoutMs,
+      @Value("${quiz.stats.retry-capacity:10000}") int retryCapacity) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushIntervalMs = flushIntervalMs;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.retryCapacity = retryCapacity;
+    Gauge.builder("quiz.stats.pending", this, StatsWriter::pendingCount)
+        .description("Bazaga yozilishini kutayotgan natijalar")
+        .register(meterRegistry);
+    this.writer = new Thread(this::run, "quiz-stats-writer");
+    this.writer.start();
+  }
+
+  public void submit(StatsEntity stats) {
+    try {
+      if (running && queue.offer(stats, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+        // To‘xtatish paytida: fon oqimi oxirgi drain'dan o‘tib ketgan bo‘lsa, natija shu yerda yoziladi
+        if (!draining || !queue.remove(stats)) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    log.warn("Natijalar navbati to‘lgan, natija to‘g‘ridan-to‘g‘ri yozilmoqda: userId={}", stats.getUserId());
+    if (write(List.of(stats))) {
+      return;
+    }
+    // To‘xtatilayotganda fon oqimi ro‘yxatni oxirgi drain'dan keyin endi o‘qimaydi
+    if (running) {
+      if (retryCount.incrementAndGet() <= retryCapacity) {
+        retry.add(stats);
+        if (!draining || !retry.remove(stats)) {
+          return;
+        }
+      }
+      retryCount.decrementAndGet();
+    }
+    logLost(List.of(stats));
+    throw new IllegalStateException("Quiz natijasini saqlab bo‘lmadi: userId=" + stats.getUserId());
+  }
+
+  public int pendingCount() {
+    return queue.size() + retryCount.get();
+  }
+
+  private void run() {
+    List<StatsEntity> batch = new ArrayList<>(batchSize);
+    while (running) {
+      try {
+        if (batch.isEmpty()) {
+          drainRetry(batch);
+        }
+        if (batch.isEmpty()) {
+          StatsEntity first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+        }
+        // Birinchi natijadan keyin interval tugaguncha yoki batch to‘lguncha yig‘iladi
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize && running) {
+          long remaining = deadline - System.nanoTime();
+          StatsEntity next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        // shutdown(): qolganlari pastda, shu oqimda yoziladi
+      }
+
+      if (batch.isEmpty()) {
+        continue;
+      }
+      if (write(batch)) {
+        batch.clear();
+      } else if (running) {
+        // Batch saqlanib qoladi; bu vaqtda navbat to‘lib, chaqiruvchilar sekinlashadi
+        sleepQuietly(RETRY_DELAY_MS);
+      }
+    }
+    drainOnShutdown(batch);
+  }
+
+  // Fon oqimida, to‘xtatilganda: qolgan batch, qayta urinish ro‘yxati va navbat oxirgi marta yoziladi,
+  // yozib bo‘lmaganlari log'ga to‘liq chiqadi. Oqim tugaguncha shutdown() kutadi
+  private void drainOnShutdown(List<StatsEntity> batch) {
+    Thread.interrupted(); // shutdown() dagi interrupt ulanish olishni buzmasin
+    draining = true;
+    List<StatsEntity> rest = new ArrayList<>(batch);
+    StatsEntity stats;
+    while ((stats = retry.poll()) != null) {
+      retryCount.decrementAndGet();
+      rest.add(stats);
+    }
+    queue.drainTo(rest);
+    for (int from = 0; from < rest.size(); from += batchSize) {
+      List<StatsEntity> chunk = rest.subList(from, Math.min(from + batchSize, rest.size()));
+      if (!write(chunk)) {
+        logLost(chunk);
+      }
+    }
+  }
+
+  private void drainRetry(List<StatsEntity> batch) {
+    StatsEntity stats;
+    while (batch.size() < batchSize && (stats = retry.poll()) != null) {
+      retryCount.decrementAndGet();
+      batch.add(stats);
+    }
+  }
+
+  private boolean write(List<StatsEntity> batch) {
+    List<Object[]> rows = new ArrayList<>(batch.size());
+    for (StatsEntity stats : batch) {
+      rows.add(new Object[]{
+          stats.getUserId(),
+          stats.getSubjectId(),
+          stats.getSubjectId(),
+          stats.getCurrentSection(),
+          stats.getTotalQuestions(),
+          stats.getCorrectAnswersCount(),
+          stats.getWrongAnswersCount(),
+          stats.getCorrectPercentage(),
+          Timestamp.valueOf(stats.getCreatedAt())
+      });
+    }
+    try {
+      jdbcTemplate.batchUpdate(INSERT, rows);
+      return true;
+    } catch (RuntimeException e) {
+      log.error("Quiz natijalarini saqlab bo‘lmadi ({} ta): {}", batch.size(), e.getMessage());
+      return false;
+    }
+  }
+
+  // Qayta tiklash uchun: yozilmay qolgan har bir natija log'da to‘liq qoladi
+  private static void logLost(List<StatsEntity> batch) {
+    for (StatsEntity stats : batch) {
+      log.error("Quiz natijasi yo‘qoldi: userId={}, subjectId={}, section={}, total={}, correct={}, wrong={}, createdAt={}",
+          stats.getUserId(), stats.getSubjectId(), stats.getCurrentSection(), stats.getTotalQuestions(),
+          stats.getCorrectAnswersCount(), stats.getWrongAnswersCount(), stats.getCreatedAt());
+    }
+  }
+
+  private static void sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Yangi natijalar qabul qilinmaydi, navbatdagilarni fon oqimi yozib tugatadi
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    writer.interrupt();
+    writer.join(TimeUnit.SECONDS.toMillis(30));
+    if (writer.isAlive()) {
+      // Oqim hali yozmoqda (masalan, ulanish kutilyapti). Ro‘yxatlarni undan tortib olmaymiz,
+      // lekin jarayon shu yerda tugasa yozilmay qolishi mumkin bo‘lganlar log'da bo‘lsin
+      log.error("Natijalar yozuvchisi 30 soniyada to‘xtamadi, {} ta natija yozilishi tasdiqlanmagan",
+          pendingCount());
+      for (StatsEntity stats : retry) {
+        logUnconfirmed(stats);
+      }
+      for (StatsEntity stats : queue) {
+        logUnconfirmed(stats);
+      }
+    }
+  }
+
+  private static void logUnconfirmed(StatsEntity stats) {
+    log.error("Quiz natijasi yozilishi tasdiqlanmagan: userId={}, subjectId={}, section={}, total={}, correct={}, "
+              + "wrong={}, createdAt={}", stats.getUserId(), stats.getSubjectId(), stats.getCurrentSection(),
+        stats.getTotalQuestions(), stats.getCorrectAnswersCount(), stats.getWrongAnswersCount(), stats.getCreatedAt());
+  }
+
+}
@@ -0,0 +1,29 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.UploadJobEntity;
+import com.smart.quiz.dto.UploadJobStatus;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadJobRepository extends JpaRepository<UploadJobEntity, Long> {
+
+  @Transactional
+  @Modifying
+  @Query("""
+  update UploadJobEntity j
+    set j.status = :failed, j.message = :message, j.updatedAt = :now
+    where j.status in :statuses
+  """)
+  int failUnfinished(@Param("statuses") Collection<UploadJobStatus> statuses,
+      @Param("failed") UploadJobStatus failed,
+      @Param("message") String message,
+      @Param("now") LocalDateTime now);
+
+}
@@ -0,0 +1,225 @@
+package com.smart.quiz;
+
+import com.smart.quiz.dto.QuestionParseResult;
+import com.smart.quiz.dto.UploadJobCompletedEvent;
+import com.smart.quiz.dto.UploadJobEntity;
+import com.smart.quiz.dto.UploadJobStatus;
+import com.smart.quiz.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+// Fayl yuklash vazifalari: cheklangan worker puli, holat upload_jobs jadvalida saqlanadi
+@Slf4j
+@Service
+public class UploadJobService {
+
+  private final QuizService quizService;
+  private final UploadJobRepository uploadJobRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ThreadPoolExecutor workers;
+  private final MeterRegistry meterRegistry;
+  private final DistributionSummary questionCounts;
+  private final DistributionSummary errorCounts;
+
+  public UploadJobService(QuizService quizService, UploadJobRepository uploadJobRepository,
+      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+      @Value("${quiz.upload.workers:2}") int workerCount,
+      @Value("${quiz.upload.queue-capacity:50}") int queueCapacity) {
+    this.quizService = quizService;
+    this.uploadJobRepository = uploadJobRepository;
+    this.eventPublisher = eventPublisher;
+    this.meterRegistry = meterRegistry;
+    this.questionCounts = DistributionSummary.builder("quiz.upload.questions")
+        .description("Bitta fayldan o‘qilgan savollar soni")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.errorCounts = DistributionSummary.builder("quiz.upload.parse.errors")
+        .description("Bitta fayldagi o‘qib bo‘lmagan savollar soni")
+        .register(meterRegistry);
+    AtomicInteger counter = new AtomicInteger();
+    this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> new Thread(runnable, "upload-worker-" + counter.incrementAndGet()),
+        new ThreadPoolExecutor.AbortPolicy());
+    Gauge.builder("quiz.upload.pending", this, UploadJobService::pendingCount)
+        .description("Navbatdagi va bajarilayotgan yuklash vazifalari")
+        .register(meterRegistry);
+  }
+
+  // Fayl manbai: worker ichida ochiladi, ish tugagach tozalanadi
+  public interface Source {
+    InputStream open() throws IOException;
+
+    default void cleanup() {
+    }
+  }
+
+  // Oldingi ishga tushirishda tugamay qolgan vazifalar (kontekst yaratilayotganda bazaga murojaat qilinmaydi)
+  @EventListener(ApplicationReadyEvent.class)
+  public void failInterruptedJobs() {
+    int count = uploadJobRepository.failUnfinished(
+        List.of(UploadJobStatus.QUEUED, UploadJobStatus.PARSING, UploadJobStatus.PERSISTING),
+        UploadJobStatus.FAILED, "Server qayta ishga tushdi, faylni qaytadan yuboring", LocalDateTime.now());
+    if (count > 0) {
+      log.warn("{} ta tugallanmagan yuklash vazifasi FAILED deb belgilandi", count);
+    }
+  }
+
+  // Multipart fayl so‘rov tugagach o‘chiriladi, shuning uchun avval vaqtinchalik faylga ko‘chiramiz
+  public UploadJobEntity submit(MultipartFile file, String subject, String subDesc, Long chatId, String userName)
+      throws IOException {
+    Path tempFile = Files.createTempFile("quiz-upload-", ".docx");
+    try {
+      file.transferTo(tempFile);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
+    }
+
+    return submit(new Source() {
+      @Override
+      public InputStream open() throws IOException {
+        return Files.newInputStream(tempFile);
+      }
+
+      @Override
+      public void cleanup() {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+          log.warn("Vaqtinchalik faylni o‘chirib bo‘lmadi: {}", tempFile);
+        }
+      }
+    }, file.getOriginalFilename(), subject, subDesc, chatId, userName);
+  }
+
+  public UploadJobEntity submit(Source source, String fileName, String subject, String subDesc, Long chatId,
+      String userName) {
+    UploadJobEntity job = new UploadJobEntity();
+    job.setStatus(UploadJobStatus.QUEUED);
+    job.setFileName(fileName);
+    job.setSubjectName(subject);
+    job.setChatId(chatId);
+    job.setCreatedAt(LocalDateTime.now());
+    job.setUpdatedAt(job.getCreatedAt());
+    // Worker yozuvni qaytadan o‘qiydi, shuning uchun qaytariladigan obyekt boshqa oqimda o‘zgarmaydi
+    UploadJobEntity saved = uploadJobRepository.save(job);
+
+    try {
+      Long jobId = saved.getId();
+      workers.execute(() -> run(jobId, source, subDesc, userName));
+    } catch (RejectedExecutionException e) {
+      source.cleanup();
+      saved.setStatus(UploadJobStatus.FAILED);
+      saved.setMessage("Yuklash navbati to‘la, birozdan so‘ng qayta urinib ko‘ring");
+      saved.setUpdatedAt(LocalDateTime.now());
+      return uploadJobRepository.save(saved);
+    }
+    return saved;
+  }
+
+  public UploadJobEntity getJob(Long jobId) {
+    return uploadJobRepository.findById(jobId).orElseThrow(() -> new ResourceNotFoundException("upload_jobs.id",
+        List.of(jobId.toString())));
+  }
+
+  public int pendingCount() {
+    return workers.getQueue().size() + workers.getActiveCount();
+  }
+
+  private void run(Long jobId, Source source, String subDesc, String userName) {
+    UploadJobEntity job;
+    try {
+      job = getJob(jobId);
+    } catch (RuntimeException e) {
+      source.cleanup();
+      throw e;
+    }
+
+    // O‘lchanayotgan bosqich; holatni yozishdagi xatolar bosqich vaqtiga qo‘shilmaydi
+    String stage = "parse";
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      update(job, UploadJobStatus.PARSING, null);
+      QuestionParseResult result;
+      // Telegramdan yuklab olish ham shu vaqtga kiradi: hujjat oqim sifatida o‘qiladi
+      try (InputStream input = source.open()) {
+        result = quizService.parseDocument(input, job.getFileName());
+      }
+      sample.stop(stageTimer(stage, "success"));
+      stage = null;
+      job.setQuestionCount(result.getQuestions().size());
+      job.setErrorCount(result.getErrors().size());
+      questionCounts.record(result.getQuestions().size());
+      errorCounts.record(result.getErrors().size());
+
+      update(job, UploadJobStatus.PERSISTING, null);
+      stage = "persist";
+      sample = Timer.start(meterRegistry);
+      quizService.saveQuestionsToDatabase(result.getQuestions(), job.getSubjectName(), subDesc, job.getChatId(),
+          userName);
+      sample.stop(stageTimer(stage, "success"));
+      stage = null;
+
+      update(job, UploadJobStatus.DONE, "Fayl muvaffaqiyatli yuklandi va savollar bazaga saqlandi!");
+    } catch (Exception e) {
+      if (stage != null) {
+        sample.stop(stageTimer(stage, "error"));
+      }
+      log.error("Yuklash vazifasi #{} xatolik bilan tugadi: {}", job.getId(), e.getMessage());
+      update(job, UploadJobStatus.FAILED, e.getMessage());
+    } finally {
+      source.cleanup();
+    }
+
+    eventPublisher.publishEvent(new UploadJobCompletedEvent(job.getId(), job.getChatId(), job.getStatus(),
+        job.getQuestionCount(), job.getErrorCount(), job.getMessage()));
+  }
+
+  // stage: parse (DOCX o‘qish) yoki persist (bazaga yozish)
+  private Timer stageTimer(String stage, String outcome) {
+    return Timer.builder("quiz.upload.duration")
+        .description("Yuklangan faylni o‘qish va saqlash vaqti")
+        .tag("stage", stage)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private void update(UploadJobEntity job, UploadJobStatus status, String message) {
+    job.setStatus(status);
+    job.setMessage(message != null && message.length() > 2000 ? message.substring(0, 2000) : message);
+    job.setUpdatedAt(LocalDateTime.now());
+    uploadJobRepository.save(job);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    workers.shutdown();
+    if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn("Yuklash vazifalari o‘z vaqtida tugamadi");
+    }
+  }
+
+}
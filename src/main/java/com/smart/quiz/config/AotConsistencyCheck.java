@@ -0,0 +1,83 @@
+package com.smart.quiz.config;
+
+import com.smart.quiz.JdbcQuizSessionStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+// AOT rejimida (-Dspring.aot.enabled=true) bean grafigi build vaqtida processAot profillari bilan qotiriladi:
+// boshqa profil yoki @ConditionalOnProperty qiymati bilan ishga tushirilsa, ilova jimgina eski grafik bilan
+// ishlab ketardi. Shunday holatda ishga tushish to‘xtatiladi.
+@Slf4j
+@Component
+public class AotConsistencyCheck {
+
+  static final String PROFILES_RESOURCE = "aot-profiles.properties";
+
+  public AotConsistencyCheck(Environment environment, ApplicationContext context) {
+    List<String> problems = new ArrayList<>();
+
+    String store = environment.getProperty("quiz.session.store", "jdbc");
+    boolean jdbcStore = context.getBeanNamesForType(JdbcQuizSessionStore.class).length > 0;
+    if (jdbcStore != "jdbc".equals(store)) {
+      problems.add("quiz.session.store=" + store + ", lekin bean grafigida "
+                   + (jdbcStore ? "jdbc" : "memory") + " sessiya ombori");
+    }
+    String mode = environment.getProperty("telegram.bot.mode", "polling");
+    boolean webhook = context.getBeanNamesForType(TelegramWebhookController.class).length > 0;
+    if (webhook != "webhook".equals(mode)) {
+      problems.add("telegram.bot.mode=" + mode + ", lekin bean grafigida " + (webhook ? "webhook" : "polling"));
+    }
+
+    if (AotDetector.useGeneratedArtifacts()) {
+      Set<String> expected = aotProfiles();
+      Set<String> active = new TreeSet<>(Arrays.asList(environment.getActiveProfiles()));
+      if (expected == null) {
+        problems.add(PROFILES_RESOURCE + " topilmadi (jar processAot bilan build qilinmagan)");
+      } else if (!expected.equals(active)) {
+        problems.add("AOT " + expected + " profillari bilan build qilingan, faol profillar " + active
+                     + " (./gradlew bootJar -PaotProfiles=" + String.join(",", active) + ")");
+      }
+    }
+
+    if (!problems.isEmpty()) {
+      throw new IllegalStateException("AOT bean grafigi ishga tushish sozlamalariga mos emas: "
+                                      + String.join("; ", problems));
+    }
+    if (AotDetector.useGeneratedArtifacts()) {
+      log.info("AOT rejimi: profillar {}", Arrays.toString(environment.getActiveProfiles()));
+    }
+  }
+
+  private static Set<String> aotProfiles() {
+    ClassPathResource resource = new ClassPathResource(PROFILES_RESOURCE);
+    if (!resource.exists()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = resource.getInputStream()) {
+      properties.load(in);
+    } catch (IOException e) {
+      return null;
+    }
+    Set<String> profiles = new TreeSet<>();
+    for (String profile : properties.getProperty("quiz.aot.profiles", "").split(",")) {
+      if (!profile.isBlank()) {
+        profiles.add(profile.trim());
+      }
+    }
+    return profiles;
+  }
+
+}
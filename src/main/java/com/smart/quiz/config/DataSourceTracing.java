@@ -0,0 +1,117 @@
+package com.smart.quiz.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+// DataSource o‘raladi: update yo‘lagida (UpdateTrace mavjud bo‘lganda) puldan ulanish kutish va har bir
+// execute* chaqiruvi vaqti trace'ga qo‘shiladi. Trace bo‘lmasa (fon oqimlari, REST) asl ulanish qaytariladi.
+// ResultSet'ni o‘qish vaqti db_ms ga kirmaydi, u handler (code_ms) vaqtida qoladi
+@Component
+public class DataSourceTracing implements BeanPostProcessor {
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource)) {
+      return new TracingDataSource(dataSource);
+    }
+    return bean;
+  }
+
+  // DelegatingDataSource: Boot'ning DataSourceUnwrapper'i orqali Hikari metrikalari avvalgidek topiladi
+  static final class TracingDataSource extends DelegatingDataSource {
+
+    TracingDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      UpdateTrace trace = UpdateTrace.current();
+      if (trace == null) {
+        return super.getConnection();
+      }
+      long start = System.nanoTime();
+      Connection connection = super.getConnection();
+      trace.addPoolWait(System.nanoTime() - start);
+      return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+  }
+
+  private static final class ConnectionHandler implements InvocationHandler {
+
+    private final Connection target;
+
+    private ConnectionHandler(Connection target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().equals("equals")) {
+        return proxy == args[0];
+      }
+      if (method.getName().equals("hashCode")) {
+        return System.identityHashCode(proxy);
+      }
+      Object result = invokeTarget(target, method, args);
+      if (result instanceof CallableStatement statement) {
+        return proxy(CallableStatement.class, new StatementHandler(statement));
+      }
+      if (result instanceof PreparedStatement statement) {
+        return proxy(PreparedStatement.class, new StatementHandler(statement));
+      }
+      if (result instanceof Statement statement) {
+        return proxy(Statement.class, new StatementHandler(statement));
+      }
+      return result;
+    }
+  }
+
+  private static final class StatementHandler implements InvocationHandler {
+
+    private final Statement target;
+
+    private StatementHandler(Statement target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      UpdateTrace trace = method.getName().startsWith("execute") ? UpdateTrace.current() : null;
+      if (trace == null) {
+        return invokeTarget(target, method, args);
+      }
+      long start = System.nanoTime();
+      try {
+        return invokeTarget(target, method, args);
+      } finally {
+        trace.addDbCall(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(DataSourceTracing.class.getClassLoader(), new Class<?>[]{type},
+        handler));
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.smart.quiz.config;
+
+import com.smart.quiz.IdleExpiringMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Yuborilgan quiz so‘rovnomasining Telegram poll ID si -> kimga, qaysi savol, to‘g‘ri variant.
+// Javob kelganda yozuv olib tashlanadi: takroriy javob uni topa olmaydi va arzon tashlab yuboriladi.
+// Javob berilmagan so‘rovnomalar muddat o‘tgach o‘chadi.
+@Component
+public class PollRegistry {
+
+  public record Entry(long userId, long subjectId, long questionId, int ordinal, int correctOptionIndex,
+      int optionCount, long sentAtNanos) {
+  }
+
+  private final IdleExpiringMap<String, Entry> polls;
+  // Telegram poll ID ni qaytarishidan oldin yetib kelgan javoblar: so‘rovnoma ro‘yxatga olinganda qayta ishlanadi
+  private final IdleExpiringMap<String, Integer> earlyAnswers;
+
+  public PollRegistry(MeterRegistry meterRegistry,
+      @Value("${quiz.poll.ttl:1h}") Duration ttl,
+      @Value("${quiz.poll.max-size:500000}") int maxSize) {
+    this.polls = new IdleExpiringMap<>("polls", ttl, maxSize, (pollId, entry) -> { });
+    this.polls.bindTo(meterRegistry);
+    this.earlyAnswers = new IdleExpiringMap<>("early_poll_answers", ttl, maxSize, (pollId, option) -> { });
+    this.earlyAnswers.bindTo(meterRegistry);
+  }
+
+  public void register(String pollId, Entry entry) {
+    polls.put(pollId, entry);
+  }
+
+  // Bir marta: ikkinchi chaqiruv null qaytaradi
+  public Entry take(String pollId) {
+    return pollId != null ? polls.remove(pollId) : null;
+  }
+
+  // Birinchi javob saqlanadi, takroriy yetkazish uni almashtirmaydi
+  public void deferAnswer(String pollId, int selectedOption) {
+    if (pollId != null) {
+      earlyAnswers.putIfAbsent(pollId, selectedOption);
+    }
+  }
+
+  public Integer takeEarlyAnswer(String pollId) {
+    return earlyAnswers.remove(pollId);
+  }
+
+  @PreDestroy
+  public void close() {
+    polls.close();
+    earlyAnswers.close();
+  }
+
+}
@@ -1,24 +1,26 @@
 package com.smart.quiz.config;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart.quiz.IdleExpiringMap;
+import com.smart.quiz.UploadJobService;
+import com.smart.quiz.dto.UploadJobCompletedEvent;
+import com.smart.quiz.dto.UploadJobEntity;
+import com.smart.quiz.dto.UploadJobStatus;
 import com.smart.quiz.dto.UploadState;
 import com.smart.quiz.dto.UploadStep;
-import java.util.HashMap;
-import java.util.Map;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.GetFile;
@@ -34,17 +36,65 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 @Component
 public class QuizBot extends TelegramLongPollingBot {
 
-  private final QuizManager quizManager;
-  private final Map<Long, UploadState> userStateMap = new HashMap<>();
-  private final RestTemplate restTemplate = new RestTemplate(); // API so‘rov uchun
+  private static final Set<String> COMMANDS = Set.of("/start", "/stop", "/quiz", "/share", "/exit", "/check",
+      "/result", "/top", "/create");
+  // Uzunroq prefikslar oldin: "share_subject_" "subject_" dan, "section_mistakes" "section_" dan oldin
+  private static final List<String> CALLBACK_PREFIXES = List.of(QuizManager.TOP_CALLBACK_PREFIX,
+      QuizManager.RESULTS_CALLBACK_PREFIX, "share_subject_", "permission_management_", "section_mistakes",
+      "section_", "subject_", "upload_file", QuizManager.RESUME_CALLBACK);
 
-  public QuizBot(@Value("${telegram.bot.token}") String botToken, QuizManager quizManager) {
+  private final QuizManager quizManager;
+  private final UploadJobService uploadJobService;
+  private final UpdateDispatcher updateDispatcher;
+  private final TelegramSender telegramSender;
+  private final MeterRegistry meterRegistry;
+  // Chat holati faqat shu chatning yo‘lagida o‘zgaradi (UpdateDispatcher).
+  // /create yoki /result dan keyin javob bermagan foydalanuvchining holati muddat o‘tgach o‘chiriladi
+  private final IdleExpiringMap<Long, UploadState> userStateMap;
+  private final AtomicBoolean firstUpdateLogged = new AtomicBoolean();
+  // Shundan sekin update'lar vaqt taqsimoti bilan log'ga yoziladi; manfiy qiymat kuzatuvni o‘chiradi
+  private final long slowUpdateNanos;
+
+  public QuizBot(@Value("${telegram.bot.token}") String botToken, QuizManager quizManager,
+      UploadJobService uploadJobService, UpdateDispatcher updateDispatcher, TelegramSender telegramSender,
+      MeterRegistry meterRegistry,
+      @Value("${telegram.bot.upload-state.idle-timeout:15m}") Duration uploadStateIdleTimeout,
+      @Value("${telegram.bot.upload-state.max-size:50000}") int uploadStateMaxSize,
+      @Value("${quiz.trace.slow-update:1s}") Duration slowUpdateThreshold) {
     super(botToken);
     this.quizManager = quizManager;
+    this.uploadJobService = uploadJobService;
+    this.updateDispatcher = updateDispatcher;
+    this.telegramSender = telegramSender;
+    this.meterRegistry = meterRegistry;
+    this.userStateMap = new IdleExpiringMap<>("upload_states", uploadStateIdleTimeout, uploadStateMaxSize,
+        (chatId, state) -> { });
+    this.userStateMap.bindTo(meterRegistry);
+    this.slowUpdateNanos = slowUpdateThreshold.toNanos();
   }
 
+  // Polling va webhook update'lari chat bo‘yicha yo‘laklarga taqsimlanadi
   @Override
   public void onUpdateReceived(Update update) {
+    if (!firstUpdateLogged.get() && firstUpdateLogged.compareAndSet(false, true)) {
+      log.info("Birinchi update qabul qilindi: JVM ishga tushganidan {} ms o‘tdi",
+          ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+    if (slowUpdateNanos < 0) {
+      updateDispatcher.dispatch(update, u -> handleUpdate(u, null));
+      return;
+    }
+    // Navbatda kutish vaqti ham hisobga kirishi uchun trace shu yerda, dispatch'dan oldin yaratiladi
+    UpdateTrace trace = new UpdateTrace(update.getUpdateId(), slowUpdateNanos);
+    updateDispatcher.dispatch(update, u -> handleUpdate(u, trace));
+  }
+
+  void handleUpdate(Update update, UpdateTrace trace) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "success";
+    if (trace != null) {
+      trace.begin();
+    }
     try {
       if (update.hasMessage()) {
         Message message = update.getMessage();
@@ -68,15 +118,81 @@ public class QuizBot extends TelegramLongPollingBot {
       }
 
     } catch (Exception e) {
+      outcome = "error";
       logError(e);
+    } finally {
+      UpdateKind kind = UpdateKind.of(update);
+      sample.stop(updateTimer(kind, outcome));
+      if (trace != null) {
+        trace.end(kind.type(), kind.name(), outcome);
+      }
+    }
+  }
+
+  // Teglar cheklangan to‘plamdan olinadi: callback ma’lumotidagi IDlar yoki erkin matn tegga tushmaydi
+  private record UpdateKind(String type, String name) {
+
+    static UpdateKind of(Update update) {
+      if (update.hasMessage() && update.getMessage().hasText()) {
+        return new UpdateKind("command", commandName(update.getMessage().getText()));
+      } else if (update.hasMessage() && update.getMessage().hasDocument()) {
+        return new UpdateKind("document", "document");
+      } else if (update.hasPollAnswer()) {
+        return new UpdateKind("poll_answer", "poll_answer");
+      } else if (update.hasCallbackQuery()) {
+        return new UpdateKind("callback", callbackName(update.getCallbackQuery().getData()));
+      }
+      return new UpdateKind("other", "other");
+    }
+  }
+
+  private Timer updateTimer(UpdateKind kind, String outcome) {
+    return Timer.builder("quiz.bot.updates")
+        .description("Bitta Telegram update'ini qayta ishlash vaqti")
+        .tag("type", kind.type())
+        .tag("name", kind.name())
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  static String commandName(String text) {
+    String command = text.trim().toLowerCase();
+    if (command.startsWith("/start ")) {
+      return "/start_invite";
     }
+    if (COMMANDS.contains(command)) {
+      return command;
+    }
+    // /create yoki /result dan keyingi javob (fan nomi, natijalar soni) ham shu yerga tushadi
+    return command.startsWith("/") ? "unknown" : "text";
+  }
+
+  static String callbackName(String data) {
+    if (data == null) {
+      return "unknown";
+    }
+    for (String prefix : CALLBACK_PREFIXES) {
+      if (data.startsWith(prefix)) {
+        return prefix.endsWith("_") ? prefix.substring(0, prefix.length() - 1) : prefix;
+      }
+    }
+    return "unknown";
   }
 
   // ✅ CallbackQuery qayta ishlash (Inline tugmalar uchun)
-  private void handleCallbackQuery(CallbackQuery callbackQuery) throws TelegramApiException {
+  private void handleCallbackQuery(CallbackQuery callbackQuery) {
     Long chatId = callbackQuery.getMessage().getChatId();
     String data = callbackQuery.getData();
-    quizManager.processCallbackQuery(chatId, data);
+    if (data.startsWith(QuizManager.TOP_CALLBACK_PREFIX)) {
+      Long subjectId = Long.parseLong(data.substring(QuizManager.TOP_CALLBACK_PREFIX.length()));
+      telegramSender.send(chatId, quizManager.sendTop(chatId, subjectId));
+    } else if (data.startsWith(QuizManager.RESULTS_CALLBACK_PREFIX)) {
+      // Natijalar sahifasi o‘sha xabarning o‘zida almashtiriladi
+      telegramSender.send(chatId, quizManager.pageResults(chatId, callbackQuery.getMessage().getMessageId(), data));
+    } else {
+      quizManager.processCallbackQuery(chatId, data);
+    }
 
     if ("upload_file".equals(data)) {
       requestDocumentUpload(chatId);
@@ -84,7 +200,7 @@ public class QuizBot extends TelegramLongPollingBot {
 
     AnswerCallbackQuery answer = new AnswerCallbackQuery();
     answer.setCallbackQueryId(callbackQuery.getId());
-    execute(answer);
+    telegramSender.send(chatId, answer);
   }
 
   // ✅ Foydalanuvchi fayl yuborganida uni qabul qilish
@@ -117,18 +233,18 @@ public class QuizBot extends TelegramLongPollingBot {
                           "\nFan: " + state.getSubject() +
                           "\n✅ Bazaga saqlash uchun yuborilmoqda...");
 
-      sendToApi(state.getDocument(), state.getSubject(), chatId, userName);
+      uploadDocument(state.getDocument(), state.getSubject(), chatId, userName);
       userStateMap.remove(chatId); // Holatni tozalash
     } else {
       sendMessage(chatId, "❌ Oldin fayl yuklang.");
     }
   }
 
-  private void handleStatInput(Long chatId, String text)  throws TelegramApiException {
+  private void handleStatInput(Long chatId, String text) {
     try {
       int count = Integer.parseInt(text.trim());
       //userStateMap.remove(chatId); // step tugadi
-      execute(quizManager.sendResults(chatId, count));
+      telegramSender.send(chatId, quizManager.sendResults(chatId, count));
     } catch (NumberFormatException e) {
       sendMessage(chatId, "❌ Iltimos, faqat son kiriting. Masalan: 3");
     }
@@ -136,7 +252,7 @@ public class QuizBot extends TelegramLongPollingBot {
 
   //
   // ✅ Inline tugma orqali fayl yuklashni so‘rash
-  private void requestDocumentUpload(Long chatId) throws TelegramApiException {
+  private void requestDocumentUpload(Long chatId) {
 
     // Yangi holat yaratish
     userStateMap.put(chatId, new UploadState());
@@ -144,55 +260,56 @@ public class QuizBot extends TelegramLongPollingBot {
     SendMessage message = new SendMessage();
     message.setChatId(chatId);
     message.setText("📎 Iltimos, quiz savollarini o'z ichiga olgan faylni yuboring (docx formatida).");
-    execute(message);
+    telegramSender.send(chatId, message);
   }
 
   private void handlePollAnswer(PollAnswer pollAnswer) {
     Long userId = pollAnswer.getUser().getId();
+    if (pollAnswer.getOptionIds() == null || pollAnswer.getOptionIds().isEmpty()) {
+      return; // ovoz qaytarib olingan
+    }
     Integer selectedOption = pollAnswer.getOptionIds().get(0); // Foydalanuvchi tanlagan variant
-    quizManager.processPollAnswer(userId, selectedOption);
+    quizManager.processPollAnswer(userId, pollAnswer.getPollId(), selectedOption);
   }
 
   private void sendMessage(Long chatId, String text) {
     SendMessage message = new SendMessage();
     message.setChatId(chatId);
     message.setText(text);
-
-    try {
-      execute(message);
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
+    telegramSender.send(chatId, message);
   }
 
   // ✅ Foydalanuvchi buyruqlarini qayta ishlash
-  private void handleTextMessage(Message message) throws TelegramApiException {
+  private void handleTextMessage(Message message) {
     Long chatId = message.getChatId();
     String text = message.getText();
     String userName = message.getFrom().getUserName() != null ? message.getFrom().getUserName() : message.getFrom().getFirstName();
 
     switch (text.toLowerCase()) {
       case "/start":
-        execute(quizManager.sendQuestionFormatInfo(chatId));
+        telegramSender.send(chatId, quizManager.sendQuestionFormatInfo(chatId));
         break;
       case "/stop":
-        execute(quizManager.sendStatistics(chatId));
+        telegramSender.send(chatId, quizManager.sendStatistics(chatId));
         break;
       case "/quiz":
-        execute(quizManager.startQuiz(chatId));
+        telegramSender.send(chatId, quizManager.startQuiz(chatId));
         break;
       case "/share":
-        execute(quizManager.shareBot(chatId));
+        telegramSender.send(chatId, quizManager.shareBot(chatId));
         break;
       case "/exit":
-        execute(quizManager.exitBot(chatId));
+        telegramSender.send(chatId, quizManager.exitBot(chatId));
         break;
       case "/check":
-        execute(quizManager.accessChange(chatId));
+        telegramSender.send(chatId, quizManager.accessChange(chatId));
         break;
       case "/result":
         userStateMap.put(chatId, new UploadState(UploadStep.WAITING_FOR_RESULT_COUNT));
-        sendMessage(chatId, "📊 Ohirgi nechta natijangizni ko‘rmoqchisiz?(masalan 3)");
+        sendMessage(chatId, "📊 Bir sahifada nechta natija ko‘rsatilsin? (masalan 3, ko‘pi bilan 10)");
+        break;
+      case "/top":
+        telegramSender.send(chatId, quizManager.showTop(chatId));
         break;
       case "/create":
         requestDocumentUpload(chatId);
@@ -201,7 +318,7 @@ public class QuizBot extends TelegramLongPollingBot {
         // Deep linkni qayta ishlash
         if (text.toLowerCase().startsWith("/start ")) {
           String param = text.toLowerCase().substring(7).trim();
-          execute(quizManager.handleInvite(chatId, param, userName));
+          telegramSender.send(chatId, quizManager.handleInvite(chatId, param, userName));
         }
         else if (userStateMap.containsKey(chatId)) {
           UploadState userState = userStateMap.get(chatId);
@@ -217,56 +334,44 @@ public class QuizBot extends TelegramLongPollingBot {
     }
   }
 
-  // ✅ APIga fayl va fan nomini yuborish
-  private void sendToApi(Document document, String subjectName, Long chatId, String userName) {
-    try {
-      String fileUrl = execute(new GetFile(document.getFileId())).getFileUrl(getBotToken());
-      byte[] fileBytes = restTemplate.getForObject(fileUrl, byte[].class);
-
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-      MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-      body.add("file", new ByteArrayResource(fileBytes) {
-        @Override
-        public String getFilename() {
-          return document.getFileName();
+  // ✅ Fayl yuklash navbatiga qo‘yiladi; Telegramdan yuklab olish va saqlash worker'da bajariladi
+  private void uploadDocument(Document document, String subjectName, Long chatId, String userName) {
+    UploadJobEntity job = uploadJobService.submit(new UploadJobService.Source() {
+      @Override
+      public InputStream open() throws IOException {
+        try {
+          GetFile getFile = new GetFile(document.getFileId());
+          Timer.Sample sample = Timer.start(meterRegistry);
+          String filePath;
+          try {
+            filePath = execute(getFile).getFilePath();
+          } catch (TelegramApiException e) {
+            sample.stop(TelegramSender.requestTimer(meterRegistry, getFile.getMethod(), "error"));
+            throw e;
+          }
+          sample.stop(TelegramSender.requestTimer(meterRegistry, getFile.getMethod(), "success"));
+          return downloadFileAsStream(filePath);
+        } catch (TelegramApiException e) {
+          throw new IOException("Faylni Telegramdan yuklab bo‘lmadi: " + e.getMessage(), e);
         }
-      });
-      body.add("subject", subjectName);
-      body.add("subDesc", "Test");
-      body.add("chatId", chatId.toString());
-      body.add("userName", userName);
-
-      HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-      String apiUrl = "http://109.172.36.54:5000/v1/quiz/upload-document"; // Kompyuteringiz IP manzili
-
-      ResponseEntity<String> response = restTemplate.exchange(apiUrl, HttpMethod.POST, requestEntity, String.class);
-
-      sendMessage(chatId, "✅ Server javobi: " + response.getBody());
-    } catch (HttpClientErrorException e) {
-      // API dan qaytgan xatolik uchun
-      String errorMessage = e.getResponseBodyAsString();
-      try {
-        // JSON javobni parse qilish
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(errorMessage);
-        errorMessage = root.path("message").asText();
-      } catch (Exception ignored) {
-        // Agar JSON parse qilib bo'lmasa, oddiy matn sifatida ko'rsatamiz
       }
+    }, document.getFileName(), subjectName, "Test", chatId, userName);
 
-      // Xatolik matnini tozalash
-      errorMessage = errorMessage
-          .replace("\"", "")
-          .replace("Xatolik:", "")
-          .trim();
+    if (job.getStatus() == UploadJobStatus.FAILED) {
+      sendMessage(chatId, "❌ " + job.getMessage());
+    }
+  }
 
-      sendMessage(chatId, "❌ " + errorMessage);
-    } catch (Exception e) {
-      // Boshqa xatoliklar uchun
-      sendMessage(chatId, e.getMessage());
-      logError(e);
+  // ✅ Yuklash vazifasi tugaganda natija chatga yuboriladi
+  @EventListener
+  public void onUploadJobCompleted(UploadJobCompletedEvent event) {
+    if (event.getChatId() == null) {
+      return;
+    }
+    if (event.getStatus() == UploadJobStatus.DONE) {
+      sendMessage(event.getChatId(), "✅ " + event.getMessage() + "\nSavollar soni: " + event.getQuestionCount());
+    } else {
+      sendMessage(event.getChatId(), "❌ " + event.getMessage());
     }
   }
 
@@ -274,6 +379,11 @@ public class QuizBot extends TelegramLongPollingBot {
     log.error("Xatolik yuz berdi: {}", e.getMessage());
   }
 
+  @PreDestroy
+  public void closeStateMap() {
+    userStateMap.close();
+  }
+
   @Override
   public String getBotUsername() {
     return "quizjon_bot"; // Bot nomi
@@ -1,37 +1,44 @@
 package com.smart.quiz.config;
 
+import com.smart.quiz.AnswerEventWriter;
+import com.smart.quiz.LeaderboardService;
+import com.smart.quiz.MistakeService;
+import com.smart.quiz.QuestionStatsService;
 import com.smart.quiz.QuizService;
+import com.smart.quiz.QuizSessionStore;
 import com.smart.quiz.StatsRepository;
 import com.smart.quiz.UsersRepository;
-import com.smart.quiz.dto.OptionResponseDto;
-import com.smart.quiz.dto.QuestionResponseDto;
-import com.smart.quiz.dto.QuestionsEntity;
+import com.smart.quiz.dto.CompiledQuestion;
+import com.smart.quiz.dto.LeaderboardDto;
+import com.smart.quiz.dto.LeaderboardEntryDto;
 import com.smart.quiz.dto.QuizState;
 import com.smart.quiz.dto.StatsEntity;
 import com.smart.quiz.dto.SubjectEntity;
+import com.smart.quiz.dto.SubjectSections;
 import com.smart.quiz.dto.UserEntity;
 import java.text.DecimalFormat;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 @Slf4j
 @Component
@@ -39,29 +46,57 @@ public class QuizManager {
 
   private final QuizService quizService;
   private final QuizBot quizBot; // QuizBot obyektini qo‘shamiz
+  private final TelegramSender telegramSender;
   public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
   public static final Long ADMIN_CHAT_ID = 778149769L;
-  // Har bir foydalanuvchi uchun holatni saqlash uchun Map
-  private final Map<Long, QuizState> userStates = new ConcurrentHashMap<>();
+  public static final String RESULTS_CALLBACK_PREFIX = "results_";
+  public static final String TOP_CALLBACK_PREFIX = "top_";
+  private static final String MISTAKES_CALLBACK = "section_mistakes";
+  public static final String RESUME_CALLBACK = "quiz_resume";
+  // So‘rovnoma yuborilmoqda, Telegram hali poll ID qaytarmagan. Har bir yuborish o‘z belgisini oladi:
+  // /stop yoki qayta boshlashdan keyin kechikib kelgan eski natija yangi so‘rovnomani almashtirmaydi
+  private static final String POLL_PENDING = "pending:";
+  private static final AtomicLong PENDING_SEQUENCE = new AtomicLong();
+  private static final int TOP_LIMIT = 10;
+  private static final String RESULTS_OLDER = "older";
+  private static final String RESULTS_NEWER = "newer";
+  // Telegram xabari 4096 belgidan oshmasligi uchun bitta sahifadagi natijalar soni
+  private static final int RESULTS_PAGE_MAX = 10;
+  // Har bir foydalanuvchi uchun quiz holati (xotira + bazaga kechiktirilgan yozuv)
+  private final QuizSessionStore sessionStore;
 
-  // Bo‘limlar ro‘yxati (masalan, har birida 50 ta savol)
-  private final Map<String, List<Long>> sections = new HashMap<>();
   private final StatsRepository statsRepository;
   private final UsersRepository usersRepository;
+  private final AnswerEventWriter answerEventWriter;
+  private final LeaderboardService leaderboardService;
+  private final QuestionStatsService questionStatsService;
+  private final MistakeService mistakeService;
+  private final PollRegistry pollRegistry;
+  private final UpdateDispatcher updateDispatcher;
 
   @Autowired
-  public QuizManager(QuizService quizService,@Lazy QuizBot quizBot, StatsRepository statsRepository,
-      UsersRepository usersRepository) {
+  public QuizManager(QuizService quizService,@Lazy QuizBot quizBot, TelegramSender telegramSender,
+      StatsRepository statsRepository, UsersRepository usersRepository, QuizSessionStore sessionStore,
+      AnswerEventWriter answerEventWriter, LeaderboardService leaderboardService,
+      QuestionStatsService questionStatsService, MistakeService mistakeService, PollRegistry pollRegistry,
+      UpdateDispatcher updateDispatcher) {
     this.quizService = quizService;
+    this.sessionStore = sessionStore;
     this.quizBot = quizBot;
+    this.telegramSender = telegramSender;
     this.usersRepository = usersRepository;
-    initializeSections(); // Bo‘limlarni boshlang‘ich holatda yuklash
     this.statsRepository = statsRepository;
+    this.answerEventWriter = answerEventWriter;
+    this.leaderboardService = leaderboardService;
+    this.questionStatsService = questionStatsService;
+    this.mistakeService = mistakeService;
+    this.pollRegistry = pollRegistry;
+    this.updateDispatcher = updateDispatcher;
   }
 
   // Quizni boshlash: Faol quiz mavjudligini tekshiradi
   public SendMessage startQuiz(Long chatId) {
-    QuizState existingState = userStates.get(chatId);
+    QuizState existingState = getState(chatId);
 
     // Agar foydalanuvchi allaqachon quizda bo‘lsa
     if (existingState != null && existingState.isActive()) {
@@ -69,7 +104,7 @@ public class QuizManager {
     }
 
     // Yangi holat yaratib, fanlarni ko‘rsatamiz
-    userStates.put(chatId, new QuizState());
+    sessionStore.put(chatId, new QuizState());
     return showSubjects(chatId);
   }
 
@@ -149,24 +184,20 @@ public class QuizManager {
     return message;
   }
 
-  private void initializeSections() {
-    List<Long> allQuestionIds = quizService.getAllQuestionIds();
-    int sectionSize = 50;
-    int sectionCount = (int) Math.ceil((double) allQuestionIds.size() / sectionSize);
+  // Callback query ni qayta ishlash
+  public void processCallbackQuery(Long userId, String callbackData) {
+    QuizState state = getState(userId);
 
-    for (int i = 0; i < sectionCount; i++) {
-      int start = i * sectionSize;
-      int end = Math.min(start + sectionSize, allQuestionIds.size());
-      sections.put("Bo‘lim " + (i + 1), allQuestionIds.subList(start, end));
+    // Savol yuborilmay qolgan faol quizni davom ettirish
+    if (callbackData.equals(RESUME_CALLBACK)) {
+      if (state != null && state.isActive() && state.hasSection() && state.getPollId() == null) {
+        sendQuestion(userId);
+      }
+      return;
     }
-  }
 
-  // Callback query ni qayta ishlash
-  public void processCallbackQuery(Long userId, String callbackData) throws TelegramApiException {
-    QuizState state = userStates.get(userId);
-
-    if (state != null && state.isActive() && state.getCurrentSection() != null) {
-      quizBot.execute(createMessage(userId, "❌ Siz allaqachon quizdasiz! Avval tugating yoki /stop buyrug‘idan foydalaning."));
+    if (state != null && state.isActive() && state.hasSection()) {
+      telegramSender.send(userId, createMessage(userId, "❌ Siz allaqachon quizdasiz! Avval tugating yoki /stop buyrug‘idan foydalaning."));
       return;
     }
 
@@ -178,44 +209,71 @@ public class QuizManager {
     // Fanni ulashish
     else if (callbackData.startsWith("share_subject_")) {
       Long subjectId = Long.parseLong(callbackData.replace("share_subject_", ""));
-      quizBot.execute(shareSubject(userId, subjectId));
+      telegramSender.send(userId, shareSubject(userId, subjectId));
     }
     //permission_management_
     else if (callbackData.startsWith("permission_management_")) {
       Long chatId = Long.parseLong(callbackData.replace("permission_management_", ""));
-      quizBot.execute(permissionManagement(chatId));
+      telegramSender.send(ADMIN_CHAT_ID, permissionManagement(chatId));
+    }
+    // Oldin xato javob berilgan savollardan bo‘lim
+    else if (callbackData.equals(MISTAKES_CALLBACK)) {
+      startMistakesSection(userId, state);
     }
     // Bo‘limni tanlash
     else if (callbackData.startsWith("section_")) {
-      String selectedSection = callbackData.replace("section_", "");
-      if (state.getSections().containsKey(selectedSection)) {
-        state.setCurrentSection(selectedSection);
+      int selectedSection = parseSection(callbackData.substring("section_".length()));
+      if (state != null && state.getSections() != null && state.getSections().hasSection(selectedSection)) {
+        state.setSection(selectedSection);
+        state.setMistakeOrdinals(null);
         state.setCurrentQuestionIndex(0);
         state.setCorrectAnswersCount(0);
         state.setWrongAnswersCount(0);
         state.setActive(true);
-        quizBot.execute(getQuestionMessage(userId));
+        sessionStore.markDirty(userId);
+        sendQuestion(userId);
       } else {
-        quizBot.execute(createMessage(userId, "❌ Bunday bo‘lim mavjud emas!"));
+        telegramSender.send(userId, createMessage(userId, "❌ Bunday bo‘lim mavjud emas!"));
       }
     }
 
   }
 
-  private void startSubjectQuiz(Long userId, Long subjectId) throws TelegramApiException {
-    QuizState state = userStates.get(userId);
-    List<QuestionsEntity> questions = quizService.getQuestionsBySubjectId(subjectId);
-    //LinkedHashSet
+  private void startMistakesSection(Long userId, QuizState state) {
+    if (state == null || state.getSections() == null) {
+      telegramSender.send(userId, createMessage(userId, "❌ Avval fanni tanlang: /quiz"));
+      return;
+    }
+    int[] ordinals = mistakeService.mistakeOrdinals(userId, state.getSubjectId(), state.getSections().size(),
+        SubjectSections.SECTION_SIZE);
+    if (ordinals.length == 0) {
+      telegramSender.send(userId, createMessage(userId, "✅ Bu fanda xato javob bergan savollaringiz qolmagan!"));
+      return;
+    }
+
+    state.setSection(SubjectSections.MISTAKES_SECTION);
+    state.setMistakeOrdinals(ordinals);
+    state.setCurrentQuestionIndex(0);
+    state.setCorrectAnswersCount(0);
+    state.setWrongAnswersCount(0);
+    state.setActive(true);
+    sessionStore.markDirty(userId);
+    sendQuestion(userId);
+  }
+
+  private void startSubjectQuiz(Long userId, Long subjectId) {
+    QuizState state = sessionStore.get(userId);
+    SubjectSections sections = quizService.getSubjectSections(subjectId);
 
-    if (questions.isEmpty()) {
-      quizBot.execute(createMessage(userId, "❌ Ushbu fanda savollar mavjud emas!"));
+    if (sections.size() == 0) {
+      telegramSender.send(userId, createMessage(userId, "❌ Ushbu fanda savollar mavjud emas!"));
       return;
     }
 
-    Map<String, List<Long>> sections = createSections(questions);
     state.setSections(sections);
     state.setSubjectId(subjectId);
-    quizBot.execute(showSections(userId));
+    sessionStore.markDirty(userId);
+    telegramSender.send(userId, showSections(userId));
   }
 
   private SendMessage shareSubject(Long userId, Long subjectId) {
@@ -246,40 +304,53 @@ public class QuizManager {
     return createMessage(ADMIN_CHAT_ID, shareMessage);
   }
 
-  // Savollarni bo‘limlarga bo‘lish
-  private Map<String, List<Long>> createSections(List<QuestionsEntity> questions) {
-    Map<String, List<Long>> sections = new HashMap<>();
-    int sectionSize = 50; // Har bir bo‘limda 50 ta savol
-    int sectionCount = (int) Math.ceil((double) questions.size() / sectionSize);
+  // Bazadan tiklangan sessiyada faqat fan IDsi bor, bo‘limlar umumiy keshdan olinadi
+  private QuizState getState(Long chatId) {
+    QuizState state = sessionStore.get(chatId);
+    if (state != null && state.getSubjectId() != null && state.getSections() == null) {
+      state.setSections(quizService.getSubjectSections(state.getSubjectId()));
+      // Xatolar bo‘limining savollari saqlanmaydi: bunday sessiya bo‘lim tanlashdan qayta boshlanadi
+      if (state.getSection() == SubjectSections.MISTAKES_SECTION && state.getMistakeOrdinals() == null) {
+        state.setSection(0);
+        state.setActive(false);
+        sessionStore.markDirty(chatId);
+      }
+    }
+    return state;
+  }
 
-    for (int i = 0; i < sectionCount; i++) {
-      int start = i * sectionSize;
-      int end = Math.min(start + sectionSize, questions.size());
-      List<Long> questionIds = questions.subList(start, end).stream()
-          .map(QuestionsEntity::getId)
-          .toList();
-      sections.put("Bo‘lim " + (i + 1), questionIds);
+  // "section_3" (eski tugmalarda "section_Bo‘lim 3")
+  private int parseSection(String value) {
+    String digits = value.replaceAll("\\D", "");
+    try {
+      return digits.isEmpty() ? -1 : Integer.parseInt(digits);
+    } catch (NumberFormatException e) {
+      return -1;
     }
-    return sections;
   }
 
   // Tanlangan fan bo‘yicha bo‘limlarni ko‘rsatish
   private SendMessage showSections(Long userId) {
-    QuizState state = userStates.get(userId);
+    QuizState state = sessionStore.get(userId);
     SendMessage message = new SendMessage();
     message.setChatId(userId.toString());
     message.setText("📚 Bo‘limni tanlang:");
 
     List<List<InlineKeyboardButton>> keyboard = new ArrayList<>();
-    List<String> sortedSections = new ArrayList<>(state.getSections().keySet());
-    Collections.sort(sortedSections);
-
-    for (String section : sortedSections) {
+    // Bo‘limlar raqam bo‘yicha tartibda (1, 2, ..., 10)
+    for (int section = 1; section <= state.getSections().sectionCount(); section++) {
       InlineKeyboardButton button = new InlineKeyboardButton();
-      button.setText(section);
+      button.setText(SubjectSections.sectionName(section));
       button.setCallbackData("section_" + section);
       keyboard.add(List.of(button));
     }
+    int mistakes = mistakeService.mistakeCount(userId, state.getSubjectId());
+    if (mistakes > 0) {
+      InlineKeyboardButton button = new InlineKeyboardButton();
+      button.setText("🔁 " + SubjectSections.sectionName(SubjectSections.MISTAKES_SECTION) + " (" + mistakes + ")");
+      button.setCallbackData(MISTAKES_CALLBACK);
+      keyboard.add(List.of(button));
+    }
 
     InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
     markup.setKeyboard(keyboard);
@@ -289,24 +360,122 @@ public class QuizManager {
   }
 
   public SendMessage exitBot(Long userId) {
-    QuizState state = userStates.remove(userId); // Holatni tozalash
+    QuizState state = sessionStore.remove(userId); // Holatni tozalash
     if (state != null && state.isActive()) {
       return createMessage(userId, "👋 Quiz to‘xtatildi. Qaytadan boshlash uchun /quiz buyrug‘idan foydalaning.");
     }
     return createMessage(userId, "👋 Botdan chiqdingiz. Qaytadan boshlash uchun /start ni yuboring.");
   }
 
+  // Oxirgi natijalar sahifasi. Keyingi sahifalar "Eskiroq/Yangiroq" tugmalari orqali ochiladi
   public SendMessage sendResults(Long userId, Integer statCount) {
-    List<StatsEntity> stats = statsRepository.getByUserId(userId)
-        .stream()
-        .sorted(Comparator.comparing(StatsEntity::getCreatedAt).reversed())
-        .limit(statCount)
-        .toList();
+    int pageSize = Math.max(1, Math.min(statCount, RESULTS_PAGE_MAX));
+    List<StatsEntity> stats = statsRepository.findLatest(userId, Limit.of(pageSize + 1));
+    boolean hasOlder = stats.size() > pageSize;
+    stats = stats.subList(0, Math.min(pageSize, stats.size()));
+
+    SendMessage message = createMessage(userId, formatResults(stats));
+    if (!stats.isEmpty()) {
+      message.setReplyMarkup(resultsKeyboard(stats, pageSize, hasOlder, false));
+    }
+    return message;
+  }
+
+  // /top: faol quizdagi fan reytingi, aks holda fan tanlash tugmalari
+  public SendMessage showTop(Long chatId) {
+    QuizState state = getState(chatId);
+    if (state != null && state.getSubjectId() != null) {
+      return sendTop(chatId, state.getSubjectId());
+    }
+
+    List<SubjectEntity> subjects = quizService.getAllSubjects(chatId);
+    if (subjects.isEmpty()) {
+      return createMessage(chatId, "📚 Sizda fanlar mavjud emas!");
+    }
+    List<List<InlineKeyboardButton>> keyboard = new ArrayList<>();
+    for (SubjectEntity subject : subjects) {
+      InlineKeyboardButton button = new InlineKeyboardButton();
+      button.setText(subject.getSubjectName());
+      button.setCallbackData(TOP_CALLBACK_PREFIX + subject.getId());
+      keyboard.add(List.of(button));
+    }
+    InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+    markup.setKeyboard(keyboard);
+
+    SendMessage message = createMessage(chatId, "🏆 Qaysi fan reytingini ko‘rmoqchisiz?");
+    message.setReplyMarkup(markup);
+    return message;
+  }
+
+  public SendMessage sendTop(Long chatId, Long subjectId) {
+    LeaderboardDto leaderboard = leaderboardService.getLeaderboard(subjectId, chatId, TOP_LIMIT);
+    if (leaderboard.getTop().isEmpty()) {
+      return createMessage(chatId, "🏆 Bu fan bo‘yicha hali natijalar yo‘q.");
+    }
+
+    StringBuilder text = new StringBuilder("🏆 Reyting (").append(leaderboard.getParticipants())
+        .append(" ishtirokchi):\n\n");
+    for (LeaderboardEntryDto entry : leaderboard.getTop()) {
+      appendTopLine(text, entry);
+    }
+    LeaderboardEntryDto me = leaderboard.getMe();
+    if (me == null) {
+      text.append("\nSiz bu fandan hali quiz ishlamagansiz.");
+    } else if (leaderboard.getTop().stream().noneMatch(entry -> entry.getUserId().equals(chatId))) {
+      text.append("\nSizning o‘rningiz:\n");
+      appendTopLine(text, me);
+    }
+    return createMessage(chatId, text.toString());
+  }
+
+  private static void appendTopLine(StringBuilder text, LeaderboardEntryDto entry) {
+    text.append(entry.getRank()).append(". ")
+        .append(entry.getUserName() != null ? entry.getUserName() : "Foydalanuvchi")
+        .append(" — ✅ ").append(entry.getCorrectAnswers())
+        .append(" / ").append(entry.getTotalAnswers()).append("\n");
+  }
+
+  // Callback: results_older_<pageSize>_<createdAt mikrosekund>_<id> yoki results_newer_...
+  public EditMessageText pageResults(Long userId, Integer messageId, String callbackData) {
+    String[] parts = callbackData.split("_");
+    boolean older = RESULTS_OLDER.equals(parts[1]);
+    int pageSize = Math.max(1, Math.min(Integer.parseInt(parts[2]), RESULTS_PAGE_MAX));
+    LocalDateTime createdAt = fromMicros(Long.parseLong(parts[3]));
+    Long id = Long.parseLong(parts[4]);
+
+    List<StatsEntity> stats;
+    boolean hasOlder;
+    boolean hasNewer;
+    if (older) {
+      stats = statsRepository.findOlder(userId, createdAt, id, Limit.of(pageSize + 1));
+      hasOlder = stats.size() > pageSize;
+      hasNewer = true;
+      stats = stats.subList(0, Math.min(pageSize, stats.size()));
+    } else {
+      stats = new ArrayList<>(statsRepository.findNewer(userId, createdAt, id, Limit.of(pageSize + 1)));
+      hasNewer = stats.size() > pageSize;
+      hasOlder = true;
+      stats = stats.subList(0, Math.min(pageSize, stats.size()));
+      Collections.reverse(stats);
+    }
+
+    EditMessageText edit = new EditMessageText();
+    edit.setChatId(userId.toString());
+    edit.setMessageId(messageId);
+    edit.setText(formatResults(stats));
+    if (!stats.isEmpty()) {
+      edit.setReplyMarkup(resultsKeyboard(stats, pageSize, hasOlder, hasNewer));
+    }
+    return edit;
+  }
 
+  private static String formatResults(List<StatsEntity> stats) {
+    if (stats.isEmpty()) {
+      return "📊 Natijalar topilmadi.";
+    }
     StringBuilder message = new StringBuilder("📊 Test natijalari:\n\n");
-    int count = 1;
     for (StatsEntity result : stats) {
-      message.append("📘 ").append(count++).append("-fan: ").append(result.getSubjectName())
+      message.append("📘 Fan: ").append(result.getSubjectName())
           .append("\n")
           .append("🔹 ").append(result.getCurrentSection()).append("\n")
           .append("📅 Sana: ").append(result.getCreatedAt().format(DATE_TIME_FORMATTER)).append("\n")
@@ -316,71 +485,156 @@ public class QuizManager {
           .append("❌ Noto‘g‘ri javoblar: ").append(result.getWrongAnswersCount()).append("\n")
           .append("-------------------------\n");
     }
+    return message.toString();
+  }
+
+  // stats yangidan eskiga tartiblangan: birinchisi "yangiroq", oxirgisi "eskiroq" kursori
+  private static InlineKeyboardMarkup resultsKeyboard(List<StatsEntity> stats, int pageSize, boolean hasOlder,
+      boolean hasNewer) {
+    List<InlineKeyboardButton> row = new ArrayList<>();
+    if (hasNewer) {
+      row.add(resultsButton("⬅️ Yangiroq", RESULTS_NEWER, pageSize, stats.get(0)));
+    }
+    if (hasOlder) {
+      row.add(resultsButton("Eskiroq ➡️", RESULTS_OLDER, pageSize, stats.get(stats.size() - 1)));
+    }
+    InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+    markup.setKeyboard(row.isEmpty() ? List.of() : List.of(row));
+    return markup;
+  }
+
+  private static InlineKeyboardButton resultsButton(String text, String direction, int pageSize, StatsEntity cursor) {
+    InlineKeyboardButton button = new InlineKeyboardButton();
+    button.setText(text);
+    button.setCallbackData(RESULTS_CALLBACK_PREFIX + direction + "_" + pageSize + "_"
+                           + toMicros(cursor.getCreatedAt()) + "_" + cursor.getId());
+    return button;
+  }
+
+  // created_at bazada mikrosekund aniqlikda saqlanadi, kursor ham shu aniqlikda
+  private static long toMicros(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+  }
 
-    return createMessage(userId, message.toString());
+  private static LocalDateTime fromMicros(long micros) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+        (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
   }
 
-  public SendPoll getQuestionMessage(Long userId) {
-    QuizState state = userStates.get(userId);
-    List<Long> sectionQuestions = state.getSections().get(state.getCurrentSection());
-    Long currentQuestionId = sectionQuestions.get(state.getCurrentQuestionIndex());
+  // Joriy savolni yuboradi; Telegram qaytargan poll ID javobni shu savolga bog‘lash uchun ro‘yxatga olinadi.
+  // Natija telegram-io oqimida keladi, holat esa chat yo‘lagida yangilanadi
+  private void sendQuestion(Long userId) {
+    QuizState state = getState(userId);
+    CompiledQuestion question = quizService.getQuestionBank(state.getSubjectId()).get(state.currentQuestionId());
+    PollRegistry.Entry entry = new PollRegistry.Entry(userId, state.getSubjectId(), question.getId(),
+        state.currentOrdinal(), question.getCorrectOptionIndex(), question.getOptions().size(), System.nanoTime());
+    String pending = POLL_PENDING + PENDING_SEQUENCE.incrementAndGet();
+    state.setPollId(pending);
+    telegramSender.send(userId, buildPoll(userId, state, question)).whenComplete((sent, error) ->
+        updateDispatcher.execute(userId, () -> pollSent(userId, pending, entry, sent)));
+  }
 
-    QuestionResponseDto question = quizService.getQuestionById(currentQuestionId);
+  // Yo‘lak oqimida. Shu orada /stop, yangi quiz yoki boshqa savol bo‘lgan bo‘lsa, eski so‘rovnoma hisobga olinmaydi
+  private void pollSent(Long userId, String pending, PollRegistry.Entry entry, Message sent) {
+    QuizState state = getState(userId);
+    if (state == null || !state.isActive() || !pending.equals(state.getPollId())) {
+      return;
+    }
+    if (sent == null || sent.getPoll() == null) {
+      // TelegramSender qayta urinishlarni tugatgan: foydalanuvchida javob beradigan so‘rovnoma yo‘q,
+      // shuning uchun xabar va davom ettirish tugmasi yuboriladi
+      state.setPollId(null);
+      telegramSender.send(userId, resumeMessage(userId));
+      return;
+    }
+    String pollId = sent.getPoll().getId();
+    // Avval holatga: javob ro‘yxatdan topilganda u joriy so‘rovnoma deb tan olinishi kerak
+    state.setPollId(pollId);
+    pollRegistry.register(pollId, entry);
+    Integer earlyAnswer = pollRegistry.takeEarlyAnswer(pollId);
+    if (earlyAnswer != null) {
+      processPollAnswer(userId, pollId, earlyAnswer);
+    }
+  }
+
+  private SendMessage resumeMessage(Long userId) {
+    InlineKeyboardButton button = new InlineKeyboardButton();
+    button.setText("🔄 Davom etish");
+    button.setCallbackData(RESUME_CALLBACK);
+    InlineKeyboardMarkup markup = new InlineKeyboardMarkup();
+    markup.setKeyboard(List.of(List.of(button)));
+
+    SendMessage message = createMessage(userId, "⚠️ Savolni yuborib bo‘lmadi. Quizni davom ettirish uchun tugmani bosing.");
+    message.setReplyMarkup(markup);
+    return message;
+  }
 
+  // JIT warm-up (QuizWarmup) ham aynan shu yo‘ldan o‘tadi
+  static SendPoll buildPoll(Long chatId, QuizState state, CompiledQuestion question) {
     SendPoll poll = new SendPoll();
-    poll.setChatId(userId.toString());
+    poll.setChatId(chatId.toString());
     poll.setQuestion((state.getCurrentQuestionIndex() + 1) + ". " + question.getQuestionText());
-    poll.setOptions(question.getOptions().stream()
-        .map(option -> trimOptionText(option.getOptionText()))
-        .toList());
+    poll.setOptions(question.getOptions());
     poll.setType("quiz");
-    poll.setCorrectOptionId(findCorrectOptionIndex(question));
+    poll.setCorrectOptionId(question.getCorrectOptionIndex());
     poll.setIsAnonymous(false);
 
     return poll;
   }
 
-  public void processPollAnswer(Long userId, Integer selectedOption) {
-    QuizState state = userStates.get(userId);
-    List<Long> sectionQuestions = state.getSections().get(state.getCurrentSection());
-    Long currentQuestionId = sectionQuestions.get(state.getCurrentQuestionIndex());
+  // Savol va to‘g‘ri variant PollRegistry'dan olinadi, bazaga murojaat yo‘q
+  public void processPollAnswer(Long userId, String pollId, Integer selectedOption) {
+    PollRegistry.Entry poll = pollRegistry.take(pollId);
+    QuizState state = getState(userId);
+    if (poll == null) {
+      // Qayta ishga tushgandan keyin ro‘yxat bo‘sh va pollId yo‘q: faol sessiyada joriy savol qayta yuboriladi.
+      // So‘rovnoma hali yuborilmoqda (pending belgisi) bo‘lsa, javob Telegram poll ID ni qaytarishidan oldin
+      // kelgan bo‘lishi mumkin: u saqlab qo‘yiladi va pollSent'da qayta ishlanadi.
+      // Takroriy javob ham shu yerga tushishi mumkin, u hech qachon ro‘yxatga olinmaydi va muddat o‘tgach o‘chadi
+      if (state != null && state.isActive() && state.hasSection()) {
+        if (state.getPollId() == null) {
+          sendQuestion(userId);
+        } else if (state.getPollId().startsWith(POLL_PENDING)) {
+          pollRegistry.deferAnswer(pollId, selectedOption);
+        }
+      }
+      return;
+    }
+    if (poll.userId() != userId || state == null || !state.isActive() || !pollId.equals(state.getPollId())) {
+      return; // /stop dan keyin yoki eski so‘rovnomaga kechikkan javob
+    }
 
-    QuestionResponseDto question = quizService.getQuestionById(currentQuestionId);
-    boolean isCorrect = selectedOption.equals(findCorrectOptionIndex(question));
+    boolean isCorrect = applyAnswer(state, poll.correctOptionIndex(), selectedOption);
+    sessionStore.markDirty(userId);
+    mistakeService.record(userId, poll.subjectId(), poll.ordinal(), isCorrect);
+    answerEventWriter.record(userId, poll.subjectId(), poll.questionId(), selectedOption, isCorrect,
+        latencyMs(poll.sentAtNanos()));
+    questionStatsService.record(poll.subjectId(), poll.questionId(), poll.optionCount(), selectedOption, isCorrect);
 
-    if (isCorrect) {
-      state.incrementCorrectAnswers();
+    if (!state.isSectionFinished()) {
+      sendQuestion(userId);
     } else {
-      state.incrementWrongAnswers();
+      telegramSender.send(userId, sendStatistics(userId));
+      state.setActive(false); // Quiz tugadi
+      sessionStore.remove(userId); // Holatni o‘chirish
     }
+  }
 
-    state.incrementQuestionIndex();
-
-    try {
-      if (state.getCurrentQuestionIndex() < sectionQuestions.size()) {
-        quizBot.execute(getQuestionMessage(userId));
-      } else {
-        quizBot.execute(sendStatistics(userId));
-        state.setActive(false); // Quiz tugadi
-        userStates.remove(userId); // Holatni o‘chirish
-      }
-    } catch (TelegramApiException e) {
-      log.error("Xatolik yuz berdi: {}", e.getMessage());
-    }
+  private static int latencyMs(long sentAtNanos) {
+    return (int) Math.min(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAtNanos), Integer.MAX_VALUE);
   }
 
-  private int findCorrectOptionIndex(QuestionResponseDto question) {
-    List<OptionResponseDto> options = question.getOptions();
-    for (int i = 0; i < options.size(); i++) {
-      if (options.get(i).isCorrect()) {
-        return i;
-      }
+  static boolean applyAnswer(QuizState state, int correctOptionIndex, int selectedOption) {
+    boolean isCorrect = selectedOption == correctOptionIndex;
+
+    if (isCorrect) {
+      state.incrementCorrectAnswers();
+    } else {
+      state.incrementWrongAnswers();
     }
-    return -1;
-  }
 
-  private String trimOptionText(String option) {
-    return option.length() > 100 ? option.substring(0, 97) + "..." : option;
+    state.incrementQuestionIndex();
+    return isCorrect;
   }
 
   public SendMessage createMessage(Long chatId, String text) {
@@ -392,7 +646,7 @@ public class QuizManager {
 
   // Statistika yuborish
   public SendMessage sendStatistics(Long userId) {
-    QuizState state = userStates.get(userId);
+    QuizState state = getState(userId);
     SendMessage message = new SendMessage();
     message.setChatId(userId.toString());
 
@@ -409,29 +663,36 @@ public class QuizManager {
           "• ✅ To'g'ri javoblar: %d (%s)\n" +
           "• ❌ Noto'g'ri javoblar: %d\n\n" +
           "👇 Yana quiz ishlamoqchi bo‘lsangiz /quiz yoki pastdagi tugmani bosing:",
-          state.getCurrentSection(),
+          state.getSectionName(),
           totalQuestions,
           state.getCorrectAnswersCount(),
           formattedPercentage,
           state.getWrongAnswersCount()
       );
-      var subject = quizService.getBySubjectId(state.getSubjectId());
+      // Fan nomi StatsWriter'da INSERT vaqtida qo‘yiladi
       StatsEntity statsEntity = new StatsEntity();
       statsEntity.setSubjectId(state.getSubjectId());
-      statsEntity.setUserId(userId.toString());
-      subject.ifPresent(
-          subjectEntity -> statsEntity.setSubjectName(subjectEntity.getSubjectName()));
-      statsEntity.setCurrentSection(state.getCurrentSection());
+      statsEntity.setUserId(userId);
+      statsEntity.setCurrentSection(state.getSectionName());
       statsEntity.setTotalQuestions(totalQuestions);
       statsEntity.setCorrectAnswersCount((long) state.getCorrectAnswersCount());
       statsEntity.setWrongAnswersCount((long) state.getWrongAnswersCount());
       statsEntity.setCorrectPercentage(formattedPercentage);
       statsEntity.setCreatedAt(LocalDateTime.now());
-      quizService.addStats(statsEntity);
+      // Reyting stats yozuvidan oldin yangilanadi: birinchi murojaatda u stats jadvalidan tiklanishi mumkin
+      if (totalQuestions > 0) {
+        leaderboardService.record(state.getSubjectId(), userId, state.getCorrectAnswersCount(), totalQuestions);
+      }
+      try {
+        quizService.addStats(statsEntity);
+      } catch (IllegalStateException e) {
+        // Baza ishlamayapti va qayta urinish ro‘yxati to‘lgan: natija log'da qoladi, foydalanuvchiga aytiladi
+        statsMessage += "\n\n⚠️ Natija hozircha saqlanmadi va /result da ko‘rinmasligi mumkin.";
+      }
 
       message.setText(statsMessage);
       state.setActive(false);
-      userStates.remove(userId);
+      sessionStore.remove(userId);
     }
 
     message.setParseMode("Markdown");
@@ -492,10 +753,10 @@ public class QuizManager {
         //agar user yoki subject topilmasa yaratadi bir biriga ham bog`laydi
         quizService.addSubjectAndUser(subject.getSubjectName(), subject.getDescription(), chatId, userName);
 
-        userStates.put(chatId, new QuizState());
+        sessionStore.put(chatId, new QuizState());
         startSubjectQuiz(chatId, subjectId);
         return createMessage(chatId, String.format("👋 %s fanidan quizga xush kelibsiz!", subject.getSubjectName()));
-      } catch (NumberFormatException | TelegramApiException e) {
+      } catch (NumberFormatException e) {
         return createMessage(chatId, "❌ Taklif havolasi noto‘g‘ri!");
       }
     }
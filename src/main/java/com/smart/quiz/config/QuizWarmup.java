@@ -0,0 +1,76 @@
+package com.smart.quiz.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smart.quiz.dto.CompiledQuestion;
+import com.smart.quiz.dto.QuestionBank;
+import com.smart.quiz.dto.QuizState;
+import com.smart.quiz.dto.SubjectSections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
+
+// Bot update qabul qilishni boshlashidan oldin savol/javob yo‘lini sun’iy ma’lumot bilan aylantiradi,
+// shunda birinchi foydalanuvchilar interpretator rejimidagi sekin kodga tushmaydi. Baza va Telegramga murojaat yo‘q.
+@Slf4j
+@Component
+public class QuizWarmup {
+
+  private final boolean enabled;
+  private final int iterations;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  public QuizWarmup(@Value("${quiz.warmup.enabled:false}") boolean enabled,
+      @Value("${quiz.warmup.iterations:20000}") int iterations) {
+    this.enabled = enabled;
+    this.iterations = iterations;
+  }
+
+  public void run() {
+    if (!enabled) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    long[] ids = new long[SubjectSections.SECTION_SIZE];
+    Map<Long, CompiledQuestion> questions = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i + 1;
+      questions.put(ids[i], new CompiledQuestion(ids[i], "Warm-up savol " + i, List.of("A", "B", "C", "D"), i % 4));
+    }
+    QuestionBank bank = new QuestionBank(0L, ids, questions);
+
+    long checksum = 0;
+    QuizState state = null;
+    for (int i = 0; i < iterations; i++) {
+      if (state == null || state.isSectionFinished()) {
+        state = new QuizState();
+        state.setSubjectId(bank.getSubjectId());
+        state.setSections(bank.getSections());
+        state.setSection(1);
+        state.setActive(true);
+      }
+      long chatId = 1L + (i & 1023);
+      CompiledQuestion question = bank.get(state.currentQuestionId());
+      SendPoll poll = QuizManager.buildPoll(chatId, state, question);
+      try {
+        checksum += objectMapper.writeValueAsString(poll).length();
+      } catch (JsonProcessingException e) {
+        log.warn("Warm-up to‘xtatildi: {}", e.getMessage());
+        return;
+      }
+      if (QuizManager.applyAnswer(state, question.getCorrectOptionIndex(), i & 3)) {
+        checksum++;
+      }
+      checksum += UpdateDispatcher.laneIndex(chatId, 8);
+    }
+
+    log.info("JIT warm-up: {} iteratsiya, {} ms (checksum {})", iterations, (System.nanoTime() - start) / 1_000_000,
+        checksum);
+  }
+
+}
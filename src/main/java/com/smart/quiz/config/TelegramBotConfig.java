@@ -1,11 +1,11 @@
 package com.smart.quiz.config;
 
+import com.smart.quiz.UploadJobService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.telegram.telegrambots.meta.TelegramBotsApi;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 @Configuration
 public class TelegramBotConfig {
@@ -14,15 +14,13 @@ public class TelegramBotConfig {
   private String botToken;
 
   @Bean
-  public QuizBot quizBot(QuizManager quizManager) {
-    return new QuizBot(botToken, quizManager);
-  }
-
-  @Bean
-  public TelegramBotsApi telegramBotsApi(QuizBot quizBot) throws TelegramApiException {
-    var botsApi = new TelegramBotsApi(DefaultBotSession.class);
-    botsApi.registerBot(quizBot);
-    return botsApi;
+  public QuizBot quizBot(QuizManager quizManager, UploadJobService uploadJobService, UpdateDispatcher updateDispatcher,
+      TelegramSender telegramSender, MeterRegistry meterRegistry,
+      @Value("${telegram.bot.upload-state.idle-timeout:15m}") Duration uploadStateIdleTimeout,
+      @Value("${telegram.bot.upload-state.max-size:50000}") int uploadStateMaxSize,
+      @Value("${quiz.trace.slow-update:1s}") Duration slowUpdateThreshold) {
+    return new QuizBot(botToken, quizManager, uploadJobService, updateDispatcher, telegramSender, meterRegistry,
+        uploadStateIdleTimeout, uploadStateMaxSize, slowUpdateThreshold);
   }
 
 }
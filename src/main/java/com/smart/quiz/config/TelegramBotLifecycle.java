@@ -0,0 +1,54 @@
+package com.smart.quiz.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
+import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+
+// Long polling rejimi (standart). Webhook rejimi: telegram.bot.mode=webhook.
+// Polling kontekst to‘liq yaratilgandan keyin boshlanadi va to‘xtatishda birinchi bo‘lib yopiladi;
+// CDS training run (spring.context.exit=onRefresh) Telegramga umuman ulanmaydi.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "polling", matchIfMissing = true)
+public class TelegramBotLifecycle implements SmartLifecycle {
+
+  private final QuizBot quizBot;
+  private final QuizWarmup quizWarmup;
+  private volatile BotSession session;
+
+  public TelegramBotLifecycle(QuizBot quizBot, QuizWarmup quizWarmup) {
+    this.quizBot = quizBot;
+    this.quizWarmup = quizWarmup;
+  }
+
+  @Override
+  public void start() {
+    quizWarmup.run();
+    try {
+      session = new TelegramBotsApi(DefaultBotSession.class).registerBot(quizBot);
+      log.info("Telegram polling boshlandi: @{}", quizBot.getBotUsername());
+    } catch (TelegramApiException e) {
+      throw new IllegalStateException("Telegram botni ro‘yxatdan o‘tkazib bo‘lmadi", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    BotSession current = session;
+    if (current != null && current.isRunning()) {
+      current.stop();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    BotSession current = session;
+    return current != null && current.isRunning();
+  }
+
+}
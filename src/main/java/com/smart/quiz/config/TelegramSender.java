@@ -0,0 +1,257 @@
+package com.smart.quiz.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+// Telegramga chiquvchi so‘rovlar navbati: global va har bir chat uchun tezlik cheklovi,
+// 429 (retry_after) va tarmoq xatolarida qayta urinish
+@Slf4j
+@Component
+public class TelegramSender {
+
+  private static final long IDLE_CHAT_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final QuizBot quizBot;
+  private final MeterRegistry meterRegistry;
+  private final TokenBucket globalBucket;
+  private final double perChatRate;
+  private final int perChatBurst;
+  private final int maxAttempts;
+
+  private final Map<Long, ChatQueue> chats = new ConcurrentHashMap<>();
+  // Tokenlar va navbat boshini faqat shu bitta oqim boshqaradi
+  private final ScheduledExecutorService scheduler;
+  // Tarmoq so‘rovlari shu pulda bajariladi
+  private final ExecutorService io;
+
+  public TelegramSender(@Lazy QuizBot quizBot, MeterRegistry meterRegistry,
+      @Value("${telegram.sender.global-rate:30}") double globalRate,
+      @Value("${telegram.sender.per-chat-rate:1}") double perChatRate,
+      @Value("${telegram.sender.per-chat-burst:3}") int perChatBurst,
+      @Value("${telegram.sender.max-attempts:5}") int maxAttempts,
+      @Value("${telegram.sender.io-threads:8}") int ioThreads) {
+    this.quizBot = quizBot;
+    this.meterRegistry = meterRegistry;
+    this.globalBucket = new TokenBucket(globalRate, (int) Math.max(1, globalRate));
+    this.perChatRate = perChatRate;
+    this.perChatBurst = perChatBurst;
+    this.maxAttempts = maxAttempts;
+
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "telegram-sender"));
+    AtomicInteger ioCounter = new AtomicInteger();
+    this.io = Executors.newFixedThreadPool(ioThreads,
+        runnable -> new Thread(runnable, "telegram-io-" + ioCounter.incrementAndGet()));
+    this.scheduler.scheduleWithFixedDelay(this::sweepIdleChats, 30, 30, TimeUnit.SECONDS);
+    Gauge.builder("quiz.telegram.pending", this, TelegramSender::pendingCount)
+        .description("Telegramga yuborilishini kutayotgan xabarlar")
+        .register(meterRegistry);
+  }
+
+  public <T extends Serializable> CompletableFuture<T> send(Long chatId, BotApiMethod<T> method) {
+    Outbound<T> outbound = new Outbound<>(method, UpdateTrace.current());
+    if (outbound.trace != null) {
+      outbound.trace.sendQueued();
+    }
+    chats.compute(chatId, (id, queue) -> {
+      ChatQueue target = queue != null ? queue : new ChatQueue(new TokenBucket(perChatRate, perChatBurst));
+      target.pending.add(outbound);
+      if (!target.busy) {
+        target.busy = true;
+        scheduler.execute(() -> drain(id));
+      }
+      return target;
+    });
+    return outbound.future;
+  }
+
+  public int pendingCount() {
+    int count = 0;
+    for (ChatQueue queue : chats.values()) {
+      count += queue.pending.size();
+    }
+    return count;
+  }
+
+  // Scheduler oqimida: navbat boshidagi xabarni token yetarli bo‘lsa yuboradi
+  private void drain(Long chatId) {
+    ChatQueue queue = chats.get(chatId);
+    Outbound<?> head = queue.pending.peek();
+
+    long wait = Math.max(queue.pausedUntil - System.nanoTime(), 0L);
+    if (wait == 0L) {
+      wait = queue.bucket.nanosUntilAvailable();
+    }
+    if (wait == 0L) {
+      wait = globalBucket.nanosUntilAvailable();
+    }
+    if (wait > 0L) {
+      scheduler.schedule(() -> drain(chatId), wait, TimeUnit.NANOSECONDS);
+      return;
+    }
+
+    queue.bucket.take();
+    globalBucket.take();
+    head.attempts++;
+    io.execute(() -> execute(chatId, queue, head));
+  }
+
+  private <T extends Serializable> void execute(Long chatId, ChatQueue queue, Outbound<T> outbound) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      T result = quizBot.execute(outbound.method);
+      outbound.traceAttempt(sample.stop(requestTimer(meterRegistry, outbound.method.getMethod(), "success")));
+      outbound.future.complete(result);
+      outbound.traceFinished();
+      finish(chatId);
+    } catch (TelegramApiRequestException e) {
+      Integer errorCode = e.getErrorCode();
+      outbound.traceAttempt(sample.stop(requestTimer(meterRegistry, outbound.method.getMethod(), outcome(errorCode))));
+      if (errorCode != null && errorCode == 429 && outbound.attempts < maxAttempts) {
+        Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+        long delay = TimeUnit.SECONDS.toNanos(retryAfter != null ? retryAfter : 1);
+        log.warn("Telegram 429: chatId={}, {} soniyadan keyin qayta yuboriladi", chatId, delay / 1_000_000_000L);
+        retry(chatId, queue, delay);
+      } else if ((errorCode == null || errorCode >= 500) && outbound.attempts < maxAttempts) {
+        retry(chatId, queue, backoff(outbound.attempts));
+      } else {
+        fail(chatId, outbound, e);
+      }
+    } catch (TelegramApiException e) {
+      // Tarmoq xatosi
+      outbound.traceAttempt(sample.stop(requestTimer(meterRegistry, outbound.method.getMethod(), "network_error")));
+      if (outbound.attempts < maxAttempts) {
+        retry(chatId, queue, backoff(outbound.attempts));
+      } else {
+        fail(chatId, outbound, e);
+      }
+    } catch (RuntimeException e) {
+      outbound.traceAttempt(sample.stop(requestTimer(meterRegistry, outbound.method.getMethod(), "error")));
+      fail(chatId, outbound, e);
+    }
+  }
+
+  // Har bir urinish alohida o‘lchanadi: method (sendMessage, sendPoll, ...) va natija bo‘yicha
+  static Timer requestTimer(MeterRegistry registry, String method, String outcome) {
+    return Timer.builder("quiz.telegram.requests")
+        .description("Telegram Bot API so‘rovlari")
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  static String outcome(Integer errorCode) {
+    if (errorCode == null || errorCode >= 500) {
+      return "server_error";
+    }
+    return errorCode == 429 ? "rate_limited" : "client_error";
+  }
+
+  private void retry(Long chatId, ChatQueue queue, long delayNanos) {
+    scheduler.execute(() -> {
+      queue.pausedUntil = System.nanoTime() + delayNanos;
+      drain(chatId);
+    });
+  }
+
+  private void fail(Long chatId, Outbound<?> outbound, Exception e) {
+    log.error("Telegramga yuborib bo‘lmadi: chatId={}, {}", chatId, e.getMessage());
+    outbound.future.completeExceptionally(e);
+    outbound.traceFinished();
+    finish(chatId);
+  }
+
+  // Navbat boshini olib tashlab, keyingisini rejalashtiradi
+  private void finish(Long chatId) {
+    chats.compute(chatId, (id, queue) -> {
+      queue.pending.poll();
+      if (queue.pending.isEmpty()) {
+        queue.busy = false;
+        queue.idleSince = System.nanoTime();
+      } else {
+        scheduler.execute(() -> drain(id));
+      }
+      return queue;
+    });
+  }
+
+  private void sweepIdleChats() {
+    long now = System.nanoTime();
+    for (Long chatId : chats.keySet()) {
+      chats.computeIfPresent(chatId, (id, queue) ->
+          !queue.busy && now - queue.idleSince > IDLE_CHAT_TTL_NANOS && queue.bucket.isFull() ? null : queue);
+    }
+  }
+
+  private static long backoff(int attempts) {
+    return TimeUnit.MILLISECONDS.toNanos(Math.min(200L << Math.min(attempts, 6), 10_000L));
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    scheduler.shutdown();
+    io.shutdown();
+    if (!io.awaitTermination(5, TimeUnit.SECONDS)) {
+      log.warn("Telegram yuborish navbatida {} ta xabar qoldi", pendingCount());
+    }
+  }
+
+  private static final class ChatQueue {
+    private final Queue<Outbound<?>> pending = new ConcurrentLinkedQueue<>();
+    private final TokenBucket bucket;
+    private boolean busy; // faqat chats.compute ichida o‘zgaradi
+    private long idleSince;
+    private volatile long pausedUntil;
+
+    private ChatQueue(TokenBucket bucket) {
+      this.bucket = bucket;
+      this.pausedUntil = System.nanoTime();
+    }
+  }
+
+  private static final class Outbound<T extends Serializable> {
+    private final BotApiMethod<T> method;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    // Xabarni navbatga qo‘ygan update (yo‘lak oqimidan tashqarida yuborilganda null)
+    private final UpdateTrace trace;
+    private volatile int attempts;
+
+    private Outbound(BotApiMethod<T> method, UpdateTrace trace) {
+      this.method = method;
+      this.trace = trace;
+    }
+
+    private void traceAttempt(long nanos) {
+      if (trace != null) {
+        trace.addTelegramCall(nanos);
+      }
+    }
+
+    private void traceFinished() {
+      if (trace != null) {
+        trace.sendFinished();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+package com.smart.quiz.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestTemplate;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+
+  private static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+  private final QuizBot quizBot;
+  private final QuizWarmup quizWarmup;
+  private final ObjectMapper objectMapper;
+  private final RestTemplate restTemplate = new RestTemplate();
+  private final String botToken;
+  private final String webhookUrl;
+  private final String webhookSecret;
+  private final int maxConnections;
+
+  public TelegramWebhookController(QuizBot quizBot, QuizWarmup quizWarmup, ObjectMapper objectMapper,
+      @Value("${telegram.bot.token}") String botToken,
+      @Value("${telegram.bot.webhook.url}") String webhookUrl,
+      @Value("${telegram.bot.webhook.secret:}") String webhookSecret,
+      @Value("${telegram.bot.webhook.max-connections:40}") int maxConnections) {
+    this.quizBot = quizBot;
+    this.quizWarmup = quizWarmup;
+    this.objectMapper = objectMapper;
+    this.botToken = botToken;
+    this.webhookUrl = webhookUrl;
+    // Sirsiz ochiq endpoint har kimdan soxta update (shu jumladan admin callback'lari) qabul qilib qo‘yadi
+    if (webhookSecret.isBlank()) {
+      throw new IllegalStateException("telegram.bot.mode=webhook uchun telegram.bot.webhook.secret majburiy "
+                                      + "(1-256 belgi: A-Z, a-z, 0-9, _ va -)");
+    }
+    this.webhookSecret = webhookSecret;
+    this.maxConnections = maxConnections;
+  }
+
+  // ✅ Telegram bitta update yuboradi, ichki relay esa update'lar massivini yuborishi mumkin
+  @PostMapping(value = "/v1/telegram/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Void> onWebhook(@RequestHeader(value = SECRET_HEADER, required = false) String secret,
+      @RequestBody JsonNode body) throws JsonProcessingException {
+    if (secret == null || !MessageDigest.isEqual(webhookSecret.getBytes(StandardCharsets.UTF_8),
+        secret.getBytes(StandardCharsets.UTF_8))) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    List<Update> updates = new ArrayList<>();
+    if (body.isArray()) {
+      for (JsonNode node : body) {
+        updates.add(objectMapper.treeToValue(node, Update.class));
+      }
+    } else {
+      updates.add(objectMapper.treeToValue(body, Update.class));
+    }
+
+    quizBot.onUpdatesReceived(updates);
+    return ResponseEntity.ok().build();
+  }
+
+  // Tomcat tayyor bo‘lgandan keyin webhookni Telegramga ro‘yxatdan o‘tkazamiz
+  @EventListener(ApplicationReadyEvent.class)
+  public void registerWebhook() {
+    // Telegram update yuborishni boshlashidan oldin
+    quizWarmup.run();
+
+    MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+    form.add("url", webhookUrl);
+    form.add("max_connections", String.valueOf(maxConnections));
+    form.add("secret_token", webhookSecret);
+
+    String response = restTemplate.postForObject(
+        "https://api.telegram.org/bot" + botToken + "/setWebhook", form, String.class);
+    log.info("Webhook o‘rnatildi: {} -> {}", webhookUrl, response);
+  }
+
+}
@@ -0,0 +1,43 @@
+package com.smart.quiz.config;
+
+// Oddiy token bucket. Faqat TelegramSender scheduler oqimidan foydalaniladi
+class TokenBucket {
+
+  private final double tokensPerNano;
+  private final double capacity;
+  private double tokens;
+  private long lastRefill;
+
+  TokenBucket(double tokensPerSecond, int capacity) {
+    this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+    this.capacity = capacity;
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+  }
+
+  // Token mavjud bo‘lguncha qancha kutish kerakligi (0 - hozir mavjud)
+  long nanosUntilAvailable() {
+    refill();
+    if (tokens >= 1d) {
+      return 0L;
+    }
+    return (long) Math.ceil((1d - tokens) / tokensPerNano);
+  }
+
+  void take() {
+    refill();
+    tokens -= 1d;
+  }
+
+  boolean isFull() {
+    refill();
+    return tokens >= capacity;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    lastRefill = now;
+  }
+
+}
@@ -0,0 +1,104 @@
+package com.smart.quiz.config;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+// Har bir chat o‘z "yo‘lagi"da ketma-ket, turli chatlar esa parallel qayta ishlanadi
+@Slf4j
+@Component
+public class UpdateDispatcher {
+
+  private final ThreadPoolExecutor[] lanes;
+  // Tashqaridan keladigan update'lar uchun yo‘lak sig‘imi. Ichki vazifalar (execute) unga kirmaydi:
+  // ular telegram-io oqimlaridan qo‘yiladi va hech qachon kutmasligi kerak
+  private final Semaphore[] capacity;
+
+  public UpdateDispatcher(@Value("${telegram.bot.update-lanes:8}") int laneCount,
+      @Value("${telegram.bot.lane-queue-capacity:1000}") int queueCapacity) {
+    this.lanes = new ThreadPoolExecutor[laneCount];
+    this.capacity = new Semaphore[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      String threadName = "update-lane-" + i;
+      lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(),
+          runnable -> new Thread(runnable, threadName),
+          UpdateDispatcher::rejectAfterShutdown);
+      capacity[i] = new Semaphore(queueCapacity);
+    }
+  }
+
+  // Yo‘lak to‘lsa, tartib buzilmasligi uchun yuboruvchini (polling/webhook oqimini) kutdiramiz
+  public void dispatch(Update update, Consumer<Update> handler) {
+    int lane = laneIndex(chatKey(update), lanes.length);
+    Semaphore permits = capacity[lane];
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException(e);
+    }
+    try {
+      lanes[lane].execute(() -> {
+        try {
+          handler.accept(update);
+        } finally {
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  // Chat holatini boshqa oqimdan (masalan, Telegram javobi kelganda) o‘zgartirish kerak bo‘lsa,
+  // vazifa shu chatning yo‘lagiga qo‘yiladi: holat faqat yo‘lak oqimida o‘zgaradi.
+  // Hech qachon bloklamaydi (navbat cheklanmagan), shuning uchun io oqimlaridan chaqirish mumkin
+  public void execute(long chatId, Runnable task) {
+    lanes[laneIndex(chatId, lanes.length)].execute(task);
+  }
+
+  static long chatKey(Update update) {
+    if (update.hasMessage()) {
+      return update.getMessage().getChatId();
+    }
+    if (update.hasCallbackQuery() && update.getCallbackQuery().getMessage() != null) {
+      return update.getCallbackQuery().getMessage().getChatId();
+    }
+    if (update.hasPollAnswer()) {
+      return update.getPollAnswer().getUser().getId();
+    }
+    return 0L;
+  }
+
+  static int laneIndex(long chatId, int laneCount) {
+    long hash = chatId * 0x9E3779B97F4A7C15L;
+    return Math.floorMod((int) (hash ^ (hash >>> 32)), laneCount);
+  }
+
+  private static void rejectAfterShutdown(Runnable task, ThreadPoolExecutor executor) {
+    throw new RejectedExecutionException("Update dispatcher to‘xtatilgan");
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    for (ThreadPoolExecutor lane : lanes) {
+      lane.shutdown();
+    }
+    for (ThreadPoolExecutor lane : lanes) {
+      if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.warn("Update yo‘lagi o‘z vaqtida to‘xtamadi, qolgan vazifalar: {}", lane.getQueue().size());
+      }
+    }
+  }
+
+}
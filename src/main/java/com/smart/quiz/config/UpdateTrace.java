@@ -0,0 +1,120 @@
+package com.smart.quiz.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+// Bitta update'ning vaqt taqsimoti: yo‘lak navbati, handler (o‘z kodimiz), baza va Telegram.
+// Handler ichidagi hisoblagichlar faqat yo‘lak oqimida o‘zgaradi (ThreadLocal orqali, lock va atomic'siz).
+// Telegram so‘rovlari io oqimlarida bajariladi, ular uchungina atomic hisoblagichlar ishlatiladi.
+// Update handler tugab, u navbatga qo‘ygan barcha xabarlar yuborilganda yakunlanadi; chegaradan sekin bo‘lsa
+// bitta log qatori yoziladi, tezlari uchun hech narsa qilinmaydi.
+@Slf4j
+public final class UpdateTrace {
+
+  public static final String MDC_KEY = "updateId";
+
+  private static final ThreadLocal<UpdateTrace> CURRENT = new ThreadLocal<>();
+
+  private final String id;
+  private final long thresholdNanos;
+  private final long receivedNanos;
+
+  // Yo‘lak oqimida
+  private long startedNanos;
+  private long handlerEndNanos;
+  private long poolNanos;
+  private long dbNanos;
+  private int dbCalls;
+  private String type;
+  private String name;
+  private String outcome;
+
+  // Handler + hali yuborilmagan xabarlar; nolga tushganda yakunlanadi
+  private final AtomicInteger pending = new AtomicInteger(1);
+  private final AtomicLong telegramNanos = new AtomicLong();
+  private final AtomicInteger telegramCalls = new AtomicInteger();
+  private volatile long lastSentNanos;
+
+  UpdateTrace(Integer updateId, long thresholdNanos) {
+    this.id = updateId != null ? "u" + updateId : "u?";
+    this.thresholdNanos = thresholdNanos;
+    this.receivedNanos = System.nanoTime();
+  }
+
+  // Joriy oqimdagi update (bo‘lmasa null: fon oqimlari, REST so‘rovlari)
+  public static UpdateTrace current() {
+    return CURRENT.get();
+  }
+
+  void begin() {
+    startedNanos = System.nanoTime();
+    CURRENT.set(this);
+    MDC.put(MDC_KEY, id);
+  }
+
+  void end(String type, String name, String outcome) {
+    handlerEndNanos = System.nanoTime();
+    this.type = type;
+    this.name = name;
+    this.outcome = outcome;
+    CURRENT.remove();
+    MDC.remove(MDC_KEY);
+    release();
+  }
+
+  // TracingDataSource: ulanish olish (Hikari pulini kutish)
+  void addPoolWait(long nanos) {
+    poolNanos += nanos;
+  }
+
+  // TracingDataSource: bitta execute* chaqiruvi
+  void addDbCall(long nanos) {
+    dbNanos += nanos;
+    dbCalls++;
+  }
+
+  // TelegramSender.send: xabar shu update uchun navbatga qo‘yildi
+  void sendQueued() {
+    pending.incrementAndGet();
+  }
+
+  // io oqimida: bitta urinish (qayta urinishlar ham alohida qo‘shiladi)
+  void addTelegramCall(long nanos) {
+    telegramNanos.addAndGet(nanos);
+    telegramCalls.incrementAndGet();
+  }
+
+  // io oqimida: xabar yuborildi yoki butunlay muvaffaqiyatsiz tugadi
+  void sendFinished() {
+    lastSentNanos = System.nanoTime();
+    release();
+  }
+
+  private void release() {
+    if (pending.decrementAndGet() == 0) {
+      finish();
+    }
+  }
+
+  private void finish() {
+    long endNanos = Math.max(handlerEndNanos, lastSentNanos);
+    long total = endNanos - receivedNanos;
+    if (total < thresholdNanos) {
+      return;
+    }
+    long handler = handlerEndNanos - startedNanos;
+    log.warn("Sekin update: id={} type={} name={} outcome={} total_ms={} queue_ms={} handler_ms={} code_ms={} "
+            + "db_pool_ms={} db_ms={} db_calls={} send_ms={} telegram_ms={} telegram_calls={}",
+        id, type, name, outcome, millis(total), millis(startedNanos - receivedNanos), millis(handler),
+        millis(Math.max(handler - poolNanos - dbNanos, 0L)), millis(poolNanos), millis(dbNanos), dbCalls,
+        millis(Math.max(endNanos - handlerEndNanos, 0L)), millis(telegramNanos.get()), telegramCalls.get());
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+}
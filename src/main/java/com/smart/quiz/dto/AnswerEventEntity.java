@@ -0,0 +1,50 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Har bir poll javobi (faqat qo‘shiladi). AnswerEventWriter JDBC batch bilan yozadi
+@Getter
+@Setter
+@Entity
+@Table(name = "answer_events", indexes = @Index(name = "idx_answer_events_user", columnList = "user_id, answered_at"))
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class AnswerEventEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "subject_id", nullable = false)
+  private Long subjectId;
+
+  @Column(name = "question_id", nullable = false)
+  private Long questionId;
+
+  @Column(name = "selected_option", nullable = false)
+  private int selectedOption;
+
+  @Column(name = "correct", nullable = false)
+  private boolean correct;
+
+  // So‘rovnoma yuborilgandan javobgacha; -1 - noma’lum (masalan, qayta ishga tushgandan keyin)
+  @Column(name = "latency_ms", nullable = false)
+  private int latencyMs;
+
+  @Column(name = "answered_at", nullable = false)
+  private LocalDateTime answeredAt;
+}
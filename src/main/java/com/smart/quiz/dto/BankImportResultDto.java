@@ -0,0 +1,15 @@
+package com.smart.quiz.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BankImportResultDto {
+  private List<Long> subjectIds;
+  private long questions;
+  private long options;
+}
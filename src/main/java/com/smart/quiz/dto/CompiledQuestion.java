@@ -0,0 +1,21 @@
+package com.smart.quiz.dto;
+
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class CompiledQuestion {
+
+  private final Long id;
+  private final String questionText;
+  private final List<String> options; // Poll uchun qisqartirilgan variantlar
+  private final int correctOptionIndex;
+
+  public CompiledQuestion(Long id, String questionText, List<String> options, int correctOptionIndex) {
+    this.id = id;
+    this.questionText = questionText;
+    this.options = List.copyOf(options);
+    this.correctOptionIndex = correctOptionIndex;
+  }
+
+}
@@ -0,0 +1,16 @@
+package com.smart.quiz.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardDto {
+  private Long subjectId;
+  private int participants;
+  private List<LeaderboardEntryDto> top;
+  private LeaderboardEntryDto me; // So‘ragan foydalanuvchi hali qatnashmagan bo‘lsa null
+}
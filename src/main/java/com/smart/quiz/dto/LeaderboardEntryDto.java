@@ -0,0 +1,16 @@
+package com.smart.quiz.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDto {
+  private int rank;
+  private Long userId;
+  private String userName;
+  private long correctAnswers;
+  private long totalAnswers;
+}
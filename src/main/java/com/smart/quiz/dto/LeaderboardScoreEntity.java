@@ -0,0 +1,47 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Fan reytinglarining saqlangan nusxasi (LeaderboardService davriy yozadi, qayta ishga tushganda o‘qiydi)
+@Getter
+@Setter
+@Entity
+@Table(name = "leaderboard_scores",
+    uniqueConstraints = @UniqueConstraint(name = "uk_leaderboard_subject_user", columnNames = {"subject_id", "user_id"}))
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class LeaderboardScoreEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "subject_id", nullable = false)
+  private Long subjectId;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "user_name")
+  private String userName;
+
+  @Column(name = "correct_answers", nullable = false)
+  private long correctAnswers;
+
+  @Column(name = "total_answers", nullable = false)
+  private long totalAnswers;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
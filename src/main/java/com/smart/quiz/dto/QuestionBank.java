@@ -0,0 +1,29 @@
+package com.smart.quiz.dto;
+
+import java.util.Map;
+import lombok.Getter;
+
+@Getter
+public class QuestionBank {
+
+  private final Long subjectId;
+  private final long[] questionIds; // Savollar tartibi (id bo‘yicha)
+  private final Map<Long, CompiledQuestion> questions;
+  private final SubjectSections sections; // questionIds bilan bir xil massiv
+
+  public QuestionBank(Long subjectId, long[] questionIds, Map<Long, CompiledQuestion> questions) {
+    this.subjectId = subjectId;
+    this.questionIds = questionIds;
+    this.questions = Map.copyOf(questions);
+    this.sections = new SubjectSections(subjectId, questionIds);
+  }
+
+  public CompiledQuestion get(Long questionId) {
+    return questions.get(questionId);
+  }
+
+  public int size() {
+    return questionIds.length;
+  }
+
+}
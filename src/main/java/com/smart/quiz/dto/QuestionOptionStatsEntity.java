@@ -0,0 +1,37 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Savol variantlari necha marta tanlangani (option_index - poll'dagi tartib bo‘yicha, 0 dan)
+@Getter
+@Setter
+@Entity
+@Table(name = "question_option_stats",
+    uniqueConstraints = @UniqueConstraint(name = "uk_question_option", columnNames = {"question_id", "option_index"}))
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class QuestionOptionStatsEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "question_id", nullable = false)
+  private Long questionId;
+
+  @Column(name = "option_index", nullable = false)
+  private int optionIndex;
+
+  @Column(name = "picks", nullable = false)
+  private long picks;
+}
@@ -0,0 +1,14 @@
+package com.smart.quiz.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuestionPageDto {
+  private List<QuestionResponseDto> items;
+  private Long nextAfterId; // Keyingi sahifa uchun afterId; oxirgi sahifada null
+}
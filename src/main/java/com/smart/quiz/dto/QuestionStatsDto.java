@@ -0,0 +1,18 @@
+package com.smart.quiz.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuestionStatsDto {
+  private Long questionId;
+  private String questionText;
+  private long attempts;
+  private long correctAnswers;
+  private double correctRate;
+  private List<Long> optionPicks; // Variant indeksi bo‘yicha necha marta tanlangani
+}
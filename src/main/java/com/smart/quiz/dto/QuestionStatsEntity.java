@@ -0,0 +1,34 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Savol bo‘yicha jami urinishlar (QuestionStatsService davriy qo‘shib boradi)
+@Getter
+@Setter
+@Entity
+@Table(name = "question_stats", indexes = @Index(name = "idx_question_stats_subject", columnList = "subject_id"))
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class QuestionStatsEntity {
+
+  @Id
+  @Column(name = "question_id")
+  private Long questionId;
+
+  @Column(name = "subject_id", nullable = false)
+  private Long subjectId;
+
+  @Column(name = "attempts", nullable = false)
+  private long attempts;
+
+  @Column(name = "correct_answers", nullable = false)
+  private long correctAnswers;
+}
@@ -6,9 +6,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import java.util.List;
 import lombok.AllArgsConstructor;
@@ -19,7 +21,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "questions")
+@Table(name = "questions", indexes = @Index(name = "idx_questions_subject_id", columnList = "subject_id, id"))
 @RequiredArgsConstructor
 @AllArgsConstructor
 public class QuestionsEntity {
@@ -36,5 +38,6 @@ public class QuestionsEntity {
 
   @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
   @JoinColumn(name = "question_id")
+  @OrderBy("id")
   private List<OptionsEntity> options;
 }
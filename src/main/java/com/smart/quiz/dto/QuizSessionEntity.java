@@ -0,0 +1,47 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Faol quiz sessiyasining saqlangan nusxasi (JdbcQuizSessionStore yozadi)
+@Getter
+@Setter
+@Entity
+@Table(name = "quiz_sessions")
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class QuizSessionEntity {
+
+  @Id
+  @Column(name = "chat_id")
+  private Long chatId;
+
+  @Column(name = "subject_id")
+  private Long subjectId;
+
+  // 1 dan boshlanadi, 0 yoki null - bo‘lim tanlanmagan
+  @Column(name = "section_number")
+  private Integer section;
+
+  @Column(name = "current_question_index", nullable = false)
+  private int currentQuestionIndex;
+
+  @Column(name = "correct_answers_count", nullable = false)
+  private int correctAnswersCount;
+
+  @Column(name = "wrong_answers_count", nullable = false)
+  private int wrongAnswersCount;
+
+  @Column(name = "active", nullable = false)
+  private boolean active;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
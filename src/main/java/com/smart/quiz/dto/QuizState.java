@@ -1,30 +1,22 @@
 package com.smart.quiz.dto;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import lombok.Getter;
 import lombok.Setter;
 
+// Holat faqat chatning o‘z update yo‘lagida o‘zgartiriladi, shuning uchun sinxronizatsiya kerak emas
 @Setter
 @Getter
 public class QuizState {
   // Getter va Setter lar
   private Long subjectId; // Tanlangan fan IDsi
-  private Map<String, List<Long>> sections; // Dinamik bo‘limlar
-  private String currentSection; // Joriy bo‘lim
-  private int currentQuestionIndex; // Joriy savol indeksi
+  private SubjectSections sections; // Fan bo‘yicha umumiy (barcha sessiyalar bitta obyektni ishlatadi)
+  private int section; // Joriy bo‘lim (1 dan boshlanadi, 0 - tanlanmagan)
+  private int currentQuestionIndex; // Joriy savol indeksi (bo‘lim ichida)
   private int correctAnswersCount; // To‘g‘ri javoblar soni
   private int wrongAnswersCount; // Noto‘g‘ri javoblar soni
   private boolean active; // Quiz faol yoki yo‘qligi
-
-  public QuizState() {
-    this.currentQuestionIndex = 0;
-    this.correctAnswersCount = 0;
-    this.wrongAnswersCount = 0;
-    this.active = false;
-    this.sections = new HashMap<>();
-  }
+  private String pollId; // Javob kutilayotgan so‘rovnoma (saqlanmaydi, Telegram javobidan keyin yo‘lakda qo‘yiladi)
+  private int[] mistakeOrdinals; // Xatolar bo‘limidagi savollar tartib raqamlari (saqlanmaydi), boshqa bo‘limlarda null
 
   public void incrementQuestionIndex() { this.currentQuestionIndex++; }
 
@@ -32,4 +24,20 @@ public class QuizState {
 
   public void incrementWrongAnswers() { this.wrongAnswersCount++; }
 
-}
\ No newline at end of file
+  public boolean hasSection() { return section != 0; }
+
+  public String getSectionName() { return SubjectSections.sectionName(section); }
+
+  public int currentOrdinal() {
+    return mistakeOrdinals != null ? mistakeOrdinals[currentQuestionIndex]
+        : SubjectSections.ordinal(section, currentQuestionIndex);
+  }
+
+  public long currentQuestionId() { return sections.questionIdAt(currentOrdinal()); }
+
+  public boolean isSectionFinished() {
+    int length = mistakeOrdinals != null ? mistakeOrdinals.length : sections.sectionLength(section);
+    return currentQuestionIndex >= length;
+  }
+
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
@@ -15,7 +16,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(name = "stats")
+@Table(name = "stats", indexes = @Index(name = "idx_stats_user_created", columnList = "user_id, created_at desc"))
 @RequiredArgsConstructor
 @AllArgsConstructor
 public class StatsEntity {
@@ -25,7 +26,7 @@ public class StatsEntity {
   private Long id;
 
   @Column(name = "user_id", nullable = false)
-  private String userId;
+  private Long userId;
 
   @Column(name = "subject_id", nullable = false)
   private Long subjectId;
@@ -0,0 +1,58 @@
+package com.smart.quiz.dto;
+
+import lombok.Getter;
+
+// Fan savollarining IDlari bitta umumiy long[] massivda. Sessiyalar faqat shu obyektga havola,
+// bo‘lim raqami va kursorni saqlaydi, shuning uchun bir fandagi foydalanuvchilar ro‘yxatlarni takrorlamaydi.
+@Getter
+public class SubjectSections {
+
+  public static final int SECTION_SIZE = 50; // Har bir bo‘limda 50 ta savol
+  // Foydalanuvchi oldin xato javob bergan savollardan tuzilgan bo‘lim (QuizState.mistakeOrdinals)
+  public static final int MISTAKES_SECTION = -1;
+
+  private final Long subjectId;
+  private final long[] questionIds; // id bo‘yicha tartiblangan, o‘zgartirilmaydi
+
+  public SubjectSections(Long subjectId, long[] questionIds) {
+    this.subjectId = subjectId;
+    this.questionIds = questionIds;
+  }
+
+  public int size() {
+    return questionIds.length;
+  }
+
+  public int sectionCount() {
+    return (questionIds.length + SECTION_SIZE - 1) / SECTION_SIZE;
+  }
+
+  // Bo‘limlar 1 dan boshlab raqamlanadi
+  public boolean hasSection(int section) {
+    return section >= 1 && section <= sectionCount();
+  }
+
+  public int sectionLength(int section) {
+    int start = (section - 1) * SECTION_SIZE;
+    return Math.min(SECTION_SIZE, questionIds.length - start);
+  }
+
+  // Savolning fan ichidagi tartib raqami (questionIds indeksi). O‘zgarmasligi QuestionBulkWriter.lockSubject'ga
+  // tayanadi: fanga savollar faqat shu lock ostida, mavjudlaridan katta ID bilan qo‘shiladi, o‘chirilmaydi
+  public static int ordinal(int section, int index) {
+    return (section - 1) * SECTION_SIZE + index;
+  }
+
+  public long questionId(int section, int index) {
+    return questionIds[ordinal(section, index)];
+  }
+
+  public long questionIdAt(int ordinal) {
+    return questionIds[ordinal];
+  }
+
+  public static String sectionName(int section) {
+    return section == MISTAKES_SECTION ? "Xatolar ustida ishlash" : "Bo‘lim " + section;
+  }
+
+}
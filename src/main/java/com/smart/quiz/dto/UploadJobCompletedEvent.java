@@ -0,0 +1,25 @@
+package com.smart.quiz.dto;
+
+import lombok.Getter;
+
+@Getter
+public class UploadJobCompletedEvent {
+
+  private final Long jobId;
+  private final Long chatId;
+  private final UploadJobStatus status;
+  private final int questionCount;
+  private final int errorCount;
+  private final String message;
+
+  public UploadJobCompletedEvent(Long jobId, Long chatId, UploadJobStatus status, int questionCount,
+      int errorCount, String message) {
+    this.jobId = jobId;
+    this.chatId = chatId;
+    this.status = status;
+    this.questionCount = questionCount;
+    this.errorCount = errorCount;
+    this.message = message;
+  }
+
+}
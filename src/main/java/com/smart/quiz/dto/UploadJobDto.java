@@ -0,0 +1,21 @@
+package com.smart.quiz.dto;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadJobDto {
+  private Long id;
+  private UploadJobStatus status;
+  private String fileName;
+  private String subjectName;
+  private int questionCount;
+  private int errorCount;
+  private String message;
+  private LocalDateTime createdAt;
+  private LocalDateTime updatedAt;
+}
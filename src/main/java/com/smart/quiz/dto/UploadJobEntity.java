@@ -0,0 +1,56 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "upload_jobs")
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class UploadJobEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", nullable = false)
+  private UploadJobStatus status;
+
+  @Column(name = "file_name")
+  private String fileName;
+
+  @Column(name = "subject_name", nullable = false)
+  private String subjectName;
+
+  @Column(name = "chat_id")
+  private Long chatId;
+
+  @Column(name = "question_count", nullable = false)
+  private int questionCount;
+
+  @Column(name = "error_count", nullable = false)
+  private int errorCount;
+
+  @Column(name = "message", length = 2000)
+  private String message;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,9 @@
+package com.smart.quiz.dto;
+
+public enum UploadJobStatus {
+  QUEUED,
+  PARSING,
+  PERSISTING,
+  DONE,
+  FAILED
+}
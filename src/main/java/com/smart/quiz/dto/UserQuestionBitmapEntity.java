@@ -0,0 +1,44 @@
+package com.smart.quiz.dto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+// Foydalanuvchi va fan bo‘yicha xato/to‘g‘ri javob berilgan savollar (QuestionBitmap.toBytes ko‘rinishida)
+@Getter
+@Setter
+@Entity
+@Table(name = "user_question_bitmaps",
+    uniqueConstraints = @UniqueConstraint(name = "uk_user_question_bitmaps", columnNames = {"user_id", "subject_id"}))
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class UserQuestionBitmapEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "subject_id", nullable = false)
+  private Long subjectId;
+
+  @Column(name = "wrong_ordinals", nullable = false, columnDefinition = "bytea")
+  private byte[] wrongOrdinals;
+
+  @Column(name = "right_ordinals", nullable = false, columnDefinition = "bytea")
+  private byte[] rightOrdinals;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,73 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AnswerEventBufferTest {
+
+  @Test
+  void dropsEventsWhenFullInsteadOfBlocking() {
+    AnswerEventBuffer buffer = new AnswerEventBuffer(4);
+    for (int i = 0; i < 6; i++) {
+      buffer.publish(i, 1, 100 + i, 0, true, 10, 0);
+    }
+
+    List<Long> questionIds = new ArrayList<>();
+    buffer.drainTo((userId, subjectId, questionId, option, correct, latency, at) -> questionIds.add(questionId), 10);
+
+    assertThat(questionIds).containsExactly(100L, 101L, 102L, 103L);
+    assertThat(buffer.droppedCount()).isEqualTo(2);
+    assertThat(buffer.publish(7, 1, 107, 0, false, 10, 0)).isTrue(); // o‘qilgandan keyin joy bo‘shaydi
+  }
+
+  @Test
+  void concurrentProducersLoseNothingWhileConsumerKeepsUp() throws Exception {
+    int producers = 4;
+    int perProducer = 50_000;
+    AnswerEventBuffer buffer = new AnswerEventBuffer(1 << 10);
+    long[] lastSeen = new long[producers];
+    long[] received = new long[1];
+    boolean[] ordered = {true};
+    AnswerEventBuffer.Sink sink = (userId, subjectId, questionId, option, correct, latency, at) -> {
+      int producer = (int) userId;
+      // Har bir yozuvchining hodisalari o‘z tartibida keladi
+      ordered[0] &= questionId > lastSeen[producer];
+      lastSeen[producer] = questionId;
+      received[0]++;
+    };
+
+    ExecutorService pool = Executors.newFixedThreadPool(producers);
+    CountDownLatch done = new CountDownLatch(producers);
+    for (int p = 0; p < producers; p++) {
+      int producer = p;
+      pool.execute(() -> {
+        for (int i = 1; i <= perProducer; ) {
+          if (buffer.publish(producer, 1, i, 0, true, 1, 0)) {
+            i++;
+          } else {
+            Thread.onSpinWait();
+          }
+        }
+        done.countDown();
+      });
+    }
+    while (!done.await(1, TimeUnit.MILLISECONDS)) {
+      buffer.drainTo(sink, 256);
+    }
+    while (buffer.drainTo(sink, 256) > 0) {
+      // qolganlari
+    }
+    pool.shutdown();
+
+    assertThat(received[0]).isEqualTo((long) producers * perProducer);
+    assertThat(ordered[0]).isTrue();
+  }
+
+}
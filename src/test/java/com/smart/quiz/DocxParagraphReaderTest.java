@@ -0,0 +1,151 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.smart.quiz.dto.QuestionResponseDto;
+import com.smart.quiz.exception.InvalidFileFormatException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class DocxParagraphReaderTest {
+
+  @Test
+  void readsSameParagraphsAsXwpfDocument() throws IOException {
+    byte[] docx;
+    try (XWPFDocument doc = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      addQuestions(doc, 20);
+      XWPFParagraph split = doc.createParagraph();
+      split.createRun().setText("$ Bo‘lingan ");
+      XWPFRun second = split.createRun();
+      second.setText("savol");
+      second.addTab();
+      second.setText("& <belgilar>");
+      XWPFTable table = doc.createTable(1, 1);
+      table.getRow(0).getCell(0).setText("jadval ichidagi matn");
+      doc.createParagraph().createRun().setText("   ");
+      addQuestions(doc, 5);
+      doc.write(out);
+      docx = out.toByteArray();
+    }
+
+    List<String> streamed = new ArrayList<>();
+    DocxParagraphReader.read(new ByteArrayInputStream(docx), streamed::add);
+
+    assertThat(streamed).isEqualTo(readWithXwpf(docx));
+  }
+
+  @Test
+  void rejectsNonZipContent() {
+    byte[] text = "$ Savol\nA\nB\nC\n#D".getBytes();
+
+    assertThatThrownBy(() -> DocxParagraphReader.read(new ByteArrayInputStream(text), line -> { }))
+        .isInstanceOf(InvalidFileFormatException.class);
+  }
+
+  @Test
+  void rejectsOversizedDocumentXml() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      zip.putNextEntry(new ZipEntry("word/document.xml"));
+      zip.write("<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><!--"
+          .getBytes(StandardCharsets.UTF_8));
+      byte[] filler = new byte[1024 * 1024];
+      Arrays.fill(filler, (byte) 'a');
+      for (long written = 0; written <= DocxParagraphReader.MAX_DOCUMENT_XML_BYTES; written += filler.length) {
+        zip.write(filler);
+      }
+      zip.write("--></w:document>".getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+    }
+
+    assertThatThrownBy(() -> DocxParagraphReader.read(new ByteArrayInputStream(out.toByteArray()), line -> { }))
+        .isInstanceOf(InvalidFileFormatException.class)
+        .hasMessageStartingWith("Fayl hajmi juda katta");
+  }
+
+  // ./gradlew benchmark
+  @Test
+  @Tag("benchmark")
+  void compareWithXwpfDocumentOnLargeBank() throws IOException {
+    byte[] docx;
+    try (XWPFDocument doc = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      addQuestions(doc, 20_000);
+      doc.write(out);
+      docx = out.toByteArray();
+    }
+    System.out.printf("DOCX hajmi: %.1f MB%n", docx.length / 1024.0 / 1024.0);
+
+    for (int round = 0; round < 3; round++) {
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      List<QuestionResponseDto> xwpfQuestions = new ArrayList<>();
+      QuestionParser xwpfParser = new QuestionParser(xwpfQuestions::add);
+      readWithXwpf(docx).forEach(xwpfParser::accept);
+      xwpfParser.finish();
+      report("XWPFDocument", start, allocated, xwpfQuestions.size());
+
+      allocated = allocatedBytes();
+      start = System.nanoTime();
+      List<QuestionResponseDto> streamedQuestions = new ArrayList<>();
+      QuestionParser streamedParser = new QuestionParser(streamedQuestions::add);
+      DocxParagraphReader.read(new ByteArrayInputStream(docx), streamedParser::accept);
+      streamedParser.finish();
+      report("StAX oqim", start, allocated, streamedQuestions.size());
+
+      assertThat(streamedQuestions).isEqualTo(xwpfQuestions);
+    }
+  }
+
+  private static void addQuestions(XWPFDocument doc, int count) {
+    for (int i = 0; i < count; i++) {
+      doc.createParagraph().createRun().setText("$ " + i + "-savol matni: qaysi javob to‘g‘ri?");
+      doc.createParagraph().createRun().setText("Birinchi variant " + i);
+      doc.createParagraph().createRun().setText("#To‘g‘ri variant " + i);
+      doc.createParagraph().createRun().setText("Uchinchi variant " + i);
+      doc.createParagraph().createRun().setText("To‘rtinchi variant " + i);
+    }
+  }
+
+  // Avvalgi yo‘l: butun hujjat XWPFDocument DOM sifatida yuklanadi
+  private static List<String> readWithXwpf(byte[] docx) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (XWPFDocument doc = new XWPFDocument(new ByteArrayInputStream(docx))) {
+      for (XWPFParagraph paragraph : doc.getParagraphs()) {
+        String text = paragraph.getText().trim();
+        if (!text.isEmpty()) {
+          lines.add(text);
+        }
+      }
+    }
+    return lines;
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static void report(String name, long start, long allocatedBefore, int questions) {
+    System.out.printf("%-12s %6d ms, %8.1f MB ajratildi, %d ta savol%n",
+        name,
+        (System.nanoTime() - start) / 1_000_000,
+        (allocatedBytes() - allocatedBefore) / 1024.0 / 1024.0,
+        questions);
+  }
+
+}
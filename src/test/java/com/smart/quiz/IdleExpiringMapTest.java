@@ -0,0 +1,100 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class IdleExpiringMapTest {
+
+  private static final Duration IDLE = Duration.ofMinutes(30);
+
+  private final AtomicLong clock = new AtomicLong(1_000_000L);
+  private final List<Long> evicted = new ArrayList<>();
+  private final List<IdleExpiringMap.Cause> causes = new ArrayList<>();
+
+  @Test
+  void expiresEntriesThatWereNotAccessed() {
+    IdleExpiringMap<Long, String> map = newMap(100);
+    map.put(1L, "a");
+    map.put(2L, "b");
+
+    advance(Duration.ofMinutes(20));
+    assertThat(map.get(2L)).isEqualTo("b"); // 2 ga murojaat qilindi
+
+    advance(Duration.ofMinutes(15));
+    map.expire(clock.get());
+
+    assertThat(map.peek(1L)).isNull();
+    assertThat(map.peek(2L)).isEqualTo("b");
+    assertThat(evicted).containsExactly(1L);
+    assertThat(causes).containsExactly(IdleExpiringMap.Cause.EXPIRED);
+
+    advance(Duration.ofMinutes(20));
+    map.expire(clock.get());
+
+    assertThat(map.size()).isZero();
+    assertThat(map.evictionCount()).isEqualTo(2);
+  }
+
+  @Test
+  void removedEntriesAreNotReportedAsEvicted() {
+    IdleExpiringMap<Long, String> map = newMap(100);
+    map.put(1L, "a");
+    map.remove(1L);
+
+    advance(Duration.ofHours(1));
+    map.expire(clock.get());
+
+    assertThat(evicted).isEmpty();
+  }
+
+  @Test
+  void removeUnlinksEntryFromWheel() {
+    IdleExpiringMap<Long, String> map = newMap(100);
+    for (long key = 0; key < 50; key++) {
+      map.put(key, "v");
+    }
+    map.put(1L, "v2"); // almashtirilgan yozuv ham g‘ildirakda qolmaydi
+    for (long key = 0; key < 50; key += 2) {
+      map.remove(key);
+    }
+
+    assertThat(map.scheduledCount()).isEqualTo(25).isEqualTo(map.size());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedWhenFull() {
+    IdleExpiringMap<Long, String> map = newMap(3);
+    map.put(1L, "a");
+    advance(Duration.ofMinutes(1));
+    map.put(2L, "b");
+    advance(Duration.ofMinutes(1));
+    map.put(3L, "c");
+    advance(Duration.ofMinutes(1));
+    map.get(1L);
+
+    map.put(4L, "d");
+
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(evicted).containsExactly(2L);
+    assertThat(causes).containsExactly(IdleExpiringMap.Cause.SIZE);
+    assertThat(map.peek(1L)).isEqualTo("a");
+  }
+
+  private IdleExpiringMap<Long, String> newMap(int maxSize) {
+    return new IdleExpiringMap<>("test", IDLE, maxSize, (key, value, cause) -> {
+      evicted.add(key);
+      causes.add(cause);
+    }, clock::get, false);
+  }
+
+  private void advance(Duration duration) {
+    clock.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+  }
+
+}
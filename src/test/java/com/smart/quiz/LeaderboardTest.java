@@ -0,0 +1,40 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LeaderboardTest {
+
+  @Test
+  void ranksByCorrectAnswersAndSharesRankOnTies() {
+    Leaderboard board = new Leaderboard();
+    board.add(1, "a", 30, 50);
+    board.add(2, "b", 45, 50);
+    board.add(3, "c", 30, 40);
+    board.add(4, "d", 10, 50);
+
+    List<Leaderboard.Ranked> top = board.top(3);
+
+    assertThat(top).extracting(ranked -> ranked.entry().userId()).containsExactly(2L, 3L, 1L);
+    assertThat(top).extracting(Leaderboard.Ranked::rank).containsExactly(1, 2, 2);
+    assertThat(board.rank(4).rank()).isEqualTo(4);
+  }
+
+  @Test
+  void accumulatesResultsAndMovesUserUp() {
+    Leaderboard board = new Leaderboard();
+    board.add(1, "a", 40, 50);
+    board.add(2, "b", 20, 50);
+
+    board.add(2, null, 5_000, 5_000); // daraxt kengayadi
+
+    assertThat(board.rank(2).rank()).isEqualTo(1);
+    assertThat(board.rank(2).entry().correct()).isEqualTo(5_020);
+    assertThat(board.rank(2).entry().userName()).isEqualTo("b");
+    assertThat(board.rank(1).rank()).isEqualTo(2);
+    assertThat(board.size()).isEqualTo(2);
+  }
+
+}
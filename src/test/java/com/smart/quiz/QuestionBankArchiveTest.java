@@ -0,0 +1,93 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.smart.quiz.dto.OptionResponseDto;
+import com.smart.quiz.dto.QuestionResponseDto;
+import com.smart.quiz.exception.InvalidFileFormatException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class QuestionBankArchiveTest {
+
+  private static final QuestionBankArchive.Sink IGNORE = new QuestionBankArchive.Sink() {
+    @Override
+    public void subject(String name, String description) {
+    }
+
+    @Override
+    public void question(QuestionResponseDto question) {
+    }
+  };
+
+  @Test
+  void roundTripsSubjectsQuestionsAndOptions() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    QuestionBankArchive.Writer writer = QuestionBankArchive.writer(out);
+    writer.subject("Tarix", null);
+    writer.question(question("O‘zbekiston poytaxti?", "Toshkent", true, "Samarqand", false));
+    writer.question(question("Bo‘sh savol"));
+    writer.subject("Matematika", "Algebra");
+    writer.question(question("2 + 2", "3", false, "4", true, "", false));
+    writer.finish();
+
+    List<String> events = new ArrayList<>();
+    QuestionBankArchive.read(new ByteArrayInputStream(out.toByteArray()), new QuestionBankArchive.Sink() {
+      @Override
+      public void subject(String name, String description) {
+        events.add("S " + name + " " + description);
+      }
+
+      @Override
+      public void question(QuestionResponseDto question) {
+        events.add("Q " + question.getQuestionText() + " " + question.getOptions().stream()
+            .map(option -> option.getOptionText() + (option.isCorrect() ? "+" : "-"))
+            .toList());
+      }
+    });
+
+    assertThat(events).containsExactly(
+        "S Tarix null",
+        "Q O‘zbekiston poytaxti? [Toshkent+, Samarqand-]",
+        "Q Bo‘sh savol []",
+        "S Matematika Algebra",
+        "Q 2 + 2 [3-, 4+, -]");
+  }
+
+  @Test
+  void rejectsTruncatedArchive() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    QuestionBankArchive.Writer writer = QuestionBankArchive.writer(out);
+    writer.subject("Tarix", null);
+    writer.question(question("Savol", "Javob", true));
+    writer.finish();
+    byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 12);
+
+    assertThatThrownBy(() -> QuestionBankArchive.read(new ByteArrayInputStream(truncated), IGNORE))
+        .isInstanceOf(InvalidFileFormatException.class);
+  }
+
+  @Test
+  void rejectsNonArchiveInput() {
+    byte[] docx = {0x50, 0x4B, 0x03, 0x04, 0, 0, 0, 0};
+
+    assertThatThrownBy(() -> QuestionBankArchive.read(new ByteArrayInputStream(docx), IGNORE))
+        .isInstanceOf(InvalidFileFormatException.class);
+  }
+
+  // text, correct juftliklari
+  private static QuestionResponseDto question(String text, Object... options) {
+    List<OptionResponseDto> list = new ArrayList<>();
+    for (int i = 0; i < options.length; i += 2) {
+      list.add(new OptionResponseDto(null, (String) options[i], (Boolean) options[i + 1]));
+    }
+    return new QuestionResponseDto(null, text, list);
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.smart.quiz;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class QuestionBitmapTest {
+
+  @Test
+  void sparseSetsUseAboutOneBytePerOrdinal() {
+    QuestionBitmap bitmap = new QuestionBitmap();
+    bitmap.set(3);
+    bitmap.set(17);
+    bitmap.set(900);
+    bitmap.clear(17);
+
+    byte[] bytes = bitmap.toBytes();
+
+    assertThat(bytes).hasSize(1 + 1 + 2); // format + 3 + (900-3-1 ikki baytli varint)
+    assertThat(ordinals(QuestionBitmap.fromBytes(bytes))).containsExactly(3, 900);
+  }
+
+  @Test
+  void denseSetsFallBackToWords() {
+    QuestionBitmap bitmap = new QuestionBitmap();
+    for (int i = 0; i < 1_000; i += 2) {
+      bitmap.set(i);
+    }
+
+    byte[] bytes = bitmap.toBytes();
+    QuestionBitmap restored = QuestionBitmap.fromBytes(bytes);
+
+    assertThat(bytes.length).isLessThanOrEqualTo(1 + 16 * Long.BYTES);
+    assertThat(restored.cardinality()).isEqualTo(500);
+    assertThat(restored.get(998)).isTrue();
+    assertThat(restored.get(999)).isFalse();
+  }
+
+  @Test
+  void emptySetIsZeroBytes() {
+    QuestionBitmap bitmap = new QuestionBitmap();
+    bitmap.set(64);
+    bitmap.clear(64);
+
+    assertThat(bitmap.toBytes()).isEmpty();
+    assertThat(QuestionBitmap.fromBytes(new byte[0]).nextSetBit(0)).isEqualTo(-1);
+  }
+
+  private static List<Integer> ordinals(QuestionBitmap bitmap) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = bitmap.nextSetBit(0); i >= 0; i = bitmap.nextSetBit(i + 1)) {
+      result.add(i);
+    }
+    return result;
+  }
+
+}
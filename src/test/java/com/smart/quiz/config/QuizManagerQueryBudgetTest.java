@@ -0,0 +1,384 @@
+package com.smart.quiz.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+import com.smart.quiz.AnswerEventWriter;
+import com.smart.quiz.InMemoryQuizSessionStore;
+import com.smart.quiz.LeaderboardService;
+import com.smart.quiz.MistakeService;
+import com.smart.quiz.QuestionBankCache;
+import com.smart.quiz.QuestionBulkWriter;
+import com.smart.quiz.QuestionRepository;
+import com.smart.quiz.QuestionStatsService;
+import com.smart.quiz.QuizMapper;
+import com.smart.quiz.QuizService;
+import com.smart.quiz.QuizServiceImpl;
+import com.smart.quiz.StatsRepository;
+import com.smart.quiz.StatsWriter;
+import com.smart.quiz.SubjectRepository;
+import com.smart.quiz.UsersRepository;
+import com.smart.quiz.Utils;
+import com.smart.quiz.dto.OptionsEntity;
+import com.smart.quiz.dto.QuestionsEntity;
+import com.smart.quiz.dto.StatsEntity;
+import com.smart.quiz.dto.SubjectEntity;
+import com.smart.quiz.dto.SubjectSections;
+import com.smart.quiz.dto.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.polls.Poll;
+
+// QuizManager oqimlari H2 (PostgreSQL rejimi) ustida, haqiqiy servislar bilan.
+// SQL so‘rovlar DataSource darajasida sanaladi: Hibernate ham, JdbcTemplate ham (reyting, xatolar bitmap'i).
+// Faqat test oqimida bajarilganlari hisobga olinadi: fon yozuvchilari (stats, javoblar, reyting snapshot'i)
+// o‘z batch'larida alohida yozadi va update yo‘lini kutdirmaydi. Yuklangan entity'lar Hibernate statistikasidan.
+// N+1 yoki keshdan o‘tib ketgan o‘qish qaytsa build yiqiladi.
+@DataJpaTest(properties = {
+    "spring.test.database.replace=none",
+    "spring.datasource.url=jdbc:h2:mem:quiz-budget;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "quiz.session.store=memory",
+    // H2 "on conflict do update" ni bilmaydi: upsert qiluvchi flusher'lar test davomida ishga tushmaydi
+    "quiz.mistakes.flush-interval-ms=3600000",
+    "quiz.leaderboard.snapshot-interval-ms=3600000",
+    "quiz.question-stats.flush-interval-ms=3600000"
+})
+@Import({QuizManager.class, QuizServiceImpl.class, QuestionBankCache.class, QuestionBulkWriter.class,
+    InMemoryQuizSessionStore.class, PollRegistry.class, Utils.class, StatsWriter.class, AnswerEventWriter.class,
+    LeaderboardService.class, QuestionStatsService.class, MistakeService.class})
+// Har bir servis chaqiruvi prod'dagidek o‘z tranzaksiyasida: test tranzaksiyasi birinchi darajali kesh bilan
+// so‘rovlarni yashirib qo‘ymasin
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuizManagerQueryBudgetTest {
+
+  private static final int QUESTIONS = 60; // 1-bo‘lim 50 ta, 2-bo‘lim 10 ta savol
+  private static final int OPTIONS = 4;
+  private static final int STATS = 15;
+
+  private static final AtomicInteger CHAT_IDS = new AtomicInteger(1_000);
+
+  private static final StatementCounter STATEMENTS = new StatementCounter();
+
+  @TestConfiguration
+  static class MetricsConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    static BeanPostProcessor countingDataSource() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+        }
+      };
+    }
+  }
+
+  @Autowired
+  private QuizManager quizManager;
+  @Autowired
+  private QuizService quizService;
+  @Autowired
+  private SubjectRepository subjectRepository;
+  @Autowired
+  private UsersRepository usersRepository;
+  @Autowired
+  private QuestionRepository questionRepository;
+  @Autowired
+  private StatsRepository statsRepository;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @MockitoBean
+  private QuizBot quizBot;
+  @MockitoBean
+  private TelegramSender telegramSender;
+  @MockitoBean
+  private QuizMapper quizMapper;
+  // Yo‘lak o‘rnida test oqimi: yuborish natijasi shu oqimda, darhol qayta ishlanadi
+  @MockitoBean
+  private UpdateDispatcher updateDispatcher;
+
+  private Statistics statistics;
+  private final AtomicInteger pollSequence = new AtomicInteger();
+  private volatile String lastPollId;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    doAnswer(invocation -> {
+      if (invocation.getArgument(1) instanceof SendPoll) {
+        Poll poll = new Poll();
+        poll.setId("poll-" + pollSequence.incrementAndGet());
+        Message message = new Message();
+        message.setPoll(poll);
+        lastPollId = poll.getId();
+        return CompletableFuture.completedFuture(message);
+      }
+      return CompletableFuture.completedFuture(null);
+    }).when(telegramSender).send(any(), any());
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(1).run();
+      return null;
+    }).when(updateDispatcher).execute(anyLong(), any());
+  }
+
+  @Test
+  void quizFlowsStayWithinQueryBudget() {
+    long chatId = CHAT_IDS.incrementAndGet();
+    SubjectEntity subject = seedSubject("Tarix " + chatId, QUESTIONS);
+    seedUser(chatId, subject);
+    seedStats(chatId, subject, STATS);
+    int questionEntities = QUESTIONS * (1 + OPTIONS);
+
+    // Foydalanuvchi + uning fanlari
+    assertBudget("startQuiz", 2, 2, () -> quizManager.startQuiz(chatId));
+    // Savol IDlari (proyeksiya) + xatolar bitmap'i (showSections: mistakeCount, keshda yo‘q)
+    assertBudget("fan tanlash", 2, 0, () -> quizManager.processCallbackQuery(chatId, "subject_" + subject.getId()));
+    // Savollar banki variantlari bilan bitta JOIN FETCH so‘rovida
+    assertBudget("bo‘lim tanlash", 1, questionEntities,
+        () -> quizManager.processCallbackQuery(chatId, "section_1"));
+    // Javoblar bazaga murojaat qilmaydi. Bo‘lim oxiridagi sendStatistics fan reytingini birinchi marta yuklaydi:
+    // leaderboard_scores (bo‘sh) + stats'dan yig‘ish; foydalanuvchi stats'da bor, nomi alohida o‘qilmaydi
+    assertBudget("50 ta javob", 2, 0, () -> answer(chatId, SubjectSections.SECTION_SIZE));
+
+    quizManager.startQuiz(chatId);
+    // Bank, IDlar va bitmap keshda: so‘rov yo‘q
+    assertBudget("fan tanlash (kesh)", 0, 0,
+        () -> quizManager.processCallbackQuery(chatId, "subject_" + subject.getId()));
+    assertBudget("bo‘lim tanlash (kesh)", 0, 0, () -> quizManager.processCallbackQuery(chatId, "section_2"));
+    answer(chatId, 5);
+    // Reyting xotirada, foydalanuvchi unda bor
+    assertBudget("sendStatistics", 0, 0, () -> quizManager.sendStatistics(chatId));
+
+    // Reytingda hali yo‘q foydalanuvchi: nomi bir marta users jadvalidan o‘qiladi
+    long newcomerId = CHAT_IDS.incrementAndGet();
+    seedUser(newcomerId, subject);
+    quizManager.startQuiz(newcomerId);
+    quizManager.processCallbackQuery(newcomerId, "subject_" + subject.getId());
+    quizManager.processCallbackQuery(newcomerId, "section_2");
+    answer(newcomerId, 5);
+    assertBudget("sendStatistics (yangi foydalanuvchi)", 1, 1, () -> quizManager.sendStatistics(newcomerId));
+
+    // Bitta sahifa + keyingi sahifa borligini bilish uchun bitta ortiqcha qator
+    assertBudget("sendResults", 1, 11, () -> quizManager.sendResults(chatId, 10));
+
+    // Fan (1) + foydalanuvchi qidirish (1) + yangi foydalanuvchi (1) + fan nomi bo‘yicha (1) + user_subjects.
+    // user_subjects many-to-many bag: Hibernate bog‘lanishni qayta yaratishda avval delete yuborishi mumkin.
+    // Keyin bo‘limlar ko‘rsatiladi: xatolar bitmap'i (1)
+    long invitedChatId = CHAT_IDS.incrementAndGet();
+    assertBudget("handleInvite", 7, 2,
+        () -> quizManager.handleInvite(invitedChatId, "subject_" + subject.getId(), "do‘st"));
+  }
+
+  @Test
+  void getQuestionByIdLoadsOptionsInOneQuery() {
+    SubjectEntity subject = seedSubject("Matematika " + CHAT_IDS.incrementAndGet(), 1);
+    Long questionId = questionRepository.findIdsBySubjectId(subject.getId()).get(0);
+
+    assertBudget("getQuestionById", 1, 1 + OPTIONS, () -> quizService.getQuestionById(questionId));
+  }
+
+  private void answer(long chatId, int count) {
+    for (int i = 0; i < count; i++) {
+      quizManager.processPollAnswer(chatId, lastPollId, i % OPTIONS);
+    }
+  }
+
+  private void assertBudget(String flow, long maxStatements, long maxEntityLoads, Runnable action) {
+    statistics.clear();
+    STATEMENTS.start();
+    try {
+      action.run();
+    } finally {
+      STATEMENTS.stop();
+    }
+    assertThat(STATEMENTS.count())
+        .as("%s: SQL so‘rovlar soni", flow)
+        .isLessThanOrEqualTo(maxStatements);
+    assertThat(statistics.getEntityLoadCount())
+        .as("%s: bazadan yuklangan entity'lar soni", flow)
+        .isLessThanOrEqualTo(maxEntityLoads);
+  }
+
+  private SubjectEntity seedSubject(String name, int questionCount) {
+    SubjectEntity subject = new SubjectEntity();
+    subject.setSubjectName(name);
+    subject = subjectRepository.save(subject);
+
+    List<QuestionsEntity> questions = new ArrayList<>();
+    for (int i = 0; i < questionCount; i++) {
+      QuestionsEntity question = new QuestionsEntity();
+      question.setQuestionText("Savol " + i);
+      question.setSubject(subject);
+      List<OptionsEntity> options = new ArrayList<>();
+      for (int j = 0; j < OPTIONS; j++) {
+        OptionsEntity option = new OptionsEntity();
+        option.setOptionText("Variant " + j);
+        option.setCorrect(j == 0);
+        options.add(option);
+      }
+      question.setOptions(options);
+      questions.add(question);
+    }
+    questionRepository.saveAll(questions);
+    return subject;
+  }
+
+  private void seedUser(long chatId, SubjectEntity subject) {
+    UserEntity user = new UserEntity();
+    user.setUserName("user_" + chatId);
+    user.setChatId(chatId);
+    user.setAccess(true);
+    user.setSubjects(new ArrayList<>(List.of(subject)));
+    usersRepository.save(user);
+  }
+
+  private void seedStats(long chatId, SubjectEntity subject, int count) {
+    List<StatsEntity> stats = new ArrayList<>();
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < count; i++) {
+      StatsEntity entity = new StatsEntity();
+      entity.setUserId(chatId);
+      entity.setSubjectId(subject.getId());
+      entity.setSubjectName(subject.getSubjectName());
+      entity.setCurrentSection(SubjectSections.sectionName(1));
+      entity.setTotalQuestions(50L);
+      entity.setCorrectAnswersCount(40L);
+      entity.setWrongAnswersCount(10L);
+      entity.setCorrectPercentage("80.0%");
+      entity.setCreatedAt(now.minusMinutes(i));
+      stats.add(entity);
+    }
+    statsRepository.saveAll(stats);
+  }
+
+  // Joriy (test) oqimida bajarilgan execute* chaqiruvlari
+  private static final class StatementCounter {
+
+    private volatile Thread owner;
+    private final AtomicLong count = new AtomicLong();
+
+    void start() {
+      count.set(0);
+      owner = Thread.currentThread();
+    }
+
+    void stop() {
+      owner = null;
+    }
+
+    long count() {
+      return count.get();
+    }
+
+    void executed() {
+      if (Thread.currentThread() == owner) {
+        count.incrementAndGet();
+      }
+    }
+  }
+
+  private static final class CountingDataSource extends DelegatingDataSource {
+
+    private CountingDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+  }
+
+  private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().equals("equals")) {
+        return proxy == args[0];
+      }
+      if (method.getName().equals("hashCode")) {
+        return System.identityHashCode(proxy);
+      }
+      Object result = invokeTarget(target, method, args);
+      if (result instanceof PreparedStatement statement) {
+        return proxy(PreparedStatement.class, new StatementHandler(statement));
+      }
+      if (result instanceof Statement statement) {
+        return proxy(Statement.class, new StatementHandler(statement));
+      }
+      return result;
+    }
+  }
+
+  private record StatementHandler(Statement target) implements InvocationHandler {
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getName().startsWith("execute")) {
+        STATEMENTS.executed();
+      }
+      return invokeTarget(target, method, args);
+    }
+  }
+
+  private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(QuizManagerQueryBudgetTest.class.getClassLoader(),
+        new Class<?>[]{type}, handler));
+  }
+
+}
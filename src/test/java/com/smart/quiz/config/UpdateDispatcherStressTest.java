@@ -0,0 +1,335 @@
+package com.smart.quiz.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.smart.quiz.AnswerEventWriter;
+import com.smart.quiz.InMemoryQuizSessionStore;
+import com.smart.quiz.LeaderboardService;
+import com.smart.quiz.MistakeService;
+import com.smart.quiz.QuestionStatsService;
+import com.smart.quiz.QuizService;
+import com.smart.quiz.StatsRepository;
+import com.smart.quiz.UsersRepository;
+import com.smart.quiz.dto.CompiledQuestion;
+import com.smart.quiz.dto.QuestionBank;
+import com.smart.quiz.dto.StatsEntity;
+import com.smart.quiz.dto.SubjectEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+import org.telegram.telegrambots.meta.api.objects.polls.Poll;
+import org.telegram.telegrambots.meta.api.objects.polls.PollAnswer;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+class UpdateDispatcherStressTest {
+
+  private static final int CHATS = 2_000;
+  private static final int QUESTIONS = 50;
+  private static final long SUBJECT_ID = 1L;
+
+  private final Map<Long, Set<String>> threadsByChat = new ConcurrentHashMap<>();
+  private final Map<Long, StatsEntity> statsByChat = new ConcurrentHashMap<>();
+  private final AtomicInteger duplicateStats = new AtomicInteger();
+  private final BlockingQueue<Object[]> sentPolls = new LinkedBlockingQueue<>();
+  // Telegram javoblari prod'dagidek boshqa oqimda va tasodifiy kechikish bilan keladi
+  private final ScheduledExecutorService telegramIo = Executors.newScheduledThreadPool(4);
+  // null bo‘lmasa, yuborilgan so‘rovnomalar shu yerda ushlab turiladi va test ularni o‘zi yakunlaydi
+  private volatile BlockingQueue<Runnable> heldSends;
+  // true bo‘lsa, so‘rovnomalar TelegramSender qayta urinishlarni tugatgandek xato bilan yakunlanadi
+  private volatile boolean failPolls;
+  private final BlockingQueue<SendMessage> sentMessages = new LinkedBlockingQueue<>();
+
+  private UpdateDispatcher dispatcher;
+  private QuizManager quizManager;
+  private InMemoryQuizSessionStore sessionStore;
+
+  @BeforeEach
+  void setUp() {
+    QuizService quizService = mock(QuizService.class);
+    QuizBot quizBot = mock(QuizBot.class);
+
+    long[] ids = new long[QUESTIONS];
+    Map<Long, CompiledQuestion> compiled = new HashMap<>();
+    for (int i = 0; i < QUESTIONS; i++) {
+      long id = i + 1;
+      ids[i] = id;
+      compiled.put(id, new CompiledQuestion(id, "Savol " + id, List.of("a", "b", "c", "d"), 0));
+    }
+
+    SubjectEntity subject = new SubjectEntity();
+    subject.setId(SUBJECT_ID);
+    subject.setSubjectName("Fan");
+
+    QuestionBank bank = new QuestionBank(SUBJECT_ID, ids, compiled);
+    when(quizService.getQuestionBank(SUBJECT_ID)).thenReturn(bank);
+    when(quizService.getSubjectSections(SUBJECT_ID)).thenReturn(bank.getSections());
+    when(quizService.getSubjectById(SUBJECT_ID)).thenReturn(subject);
+    doAnswer(invocation -> {
+      StatsEntity stats = invocation.getArgument(0);
+      if (statsByChat.putIfAbsent(stats.getUserId(), stats) != null) {
+        duplicateStats.incrementAndGet();
+      }
+      return null;
+    }).when(quizService).addStats(any());
+
+    // Har bir yuborilgan so‘rovnomaga noyob poll ID; "foydalanuvchilar" unga javob beradi
+    TelegramSender telegramSender = mock(TelegramSender.class);
+    AtomicInteger pollSequence = new AtomicInteger();
+    doAnswer(invocation -> {
+      Long chatId = invocation.getArgument(0);
+      // Savol faqat chatning o‘z yo‘lagidan yuborilishi kerak
+      recordThread(chatId);
+      CompletableFuture<Message> future = new CompletableFuture<>();
+      if (invocation.getArgument(1) instanceof SendMessage sendMessage) {
+        sentMessages.add(sendMessage);
+      }
+      if (failPolls && invocation.getArgument(1) instanceof SendPoll) {
+        telegramIo.execute(() -> future.completeExceptionally(new TelegramApiException("Bad Request")));
+        return future;
+      }
+      Message message = null;
+      if (invocation.getArgument(1) instanceof SendPoll) {
+        Poll poll = new Poll();
+        poll.setId("poll-" + pollSequence.incrementAndGet());
+        message = new Message();
+        message.setPoll(poll);
+        // Foydalanuvchi so‘rovnomani Telegram bizga poll ID ni qaytarishidan oldin ko‘rishi mumkin
+        sentPolls.add(new Object[]{chatId, poll.getId()});
+      }
+      Message result = message;
+      BlockingQueue<Runnable> held = heldSends;
+      if (held != null) {
+        held.add(() -> future.complete(result));
+      } else {
+        telegramIo.schedule(() -> future.complete(result), ThreadLocalRandom.current().nextInt(2_000),
+            TimeUnit.MICROSECONDS);
+      }
+      return future;
+    }).when(telegramSender).send(any(), any());
+
+    dispatcher = new UpdateDispatcher(8, 1_000);
+    sessionStore = new InMemoryQuizSessionStore(new SimpleMeterRegistry(), Duration.ofMinutes(30), CHATS);
+    quizManager = new QuizManager(quizService, quizBot, telegramSender, mock(StatsRepository.class),
+        mock(UsersRepository.class), sessionStore,
+        mock(AnswerEventWriter.class), mock(LeaderboardService.class), mock(QuestionStatsService.class),
+        mock(MistakeService.class), new PollRegistry(new SimpleMeterRegistry(), Duration.ofHours(1), 100_000),
+        dispatcher);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    telegramIo.shutdownNow();
+    dispatcher.shutdown();
+  }
+
+  @Test
+  void concurrentAnswersAndCallbacksAdvanceEachQuizExactlyOnce() throws Exception {
+    // Har bir chat uchun quizni boshlash va bo‘limni tanlash
+    for (long chatId = 1; chatId <= CHATS; chatId++) {
+      dispatcher.dispatch(textUpdate(chatId), this::handle);
+      dispatcher.dispatch(callbackUpdate(chatId, "subject_" + SUBJECT_ID), this::handle);
+      dispatcher.dispatch(callbackUpdate(chatId, "section_1"), this::handle);
+    }
+
+    // Har bir so‘rovnomaga ikki marta (takroriy yetkazish) turli oqimlardan javob beriladi,
+    // orada qo‘shimcha callbacklar ham yuboriladi
+    ExecutorService users = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int user = 0; user < 8; user++) {
+      futures.add(users.submit(() -> {
+        while (statsByChat.size() < CHATS) {
+          Object[] sent = sentPolls.poll(100, TimeUnit.MILLISECONDS);
+          if (sent == null) {
+            continue;
+          }
+          long chatId = (Long) sent[0];
+          String pollId = (String) sent[1];
+          dispatcher.dispatch(pollAnswerUpdate(chatId, pollId, 0), this::handle);
+          dispatcher.dispatch(callbackUpdate(chatId, "share_subject_" + SUBJECT_ID), this::handle);
+          dispatcher.dispatch(pollAnswerUpdate(chatId, pollId, 1), this::handle);
+        }
+        return null;
+      }));
+    }
+    for (var future : futures) {
+      future.get(2, TimeUnit.MINUTES);
+    }
+    users.shutdown();
+    dispatcher.shutdown();
+
+    assertThat(duplicateStats).hasValue(0);
+    assertThat(statsByChat).hasSize(CHATS);
+    assertThat(statsByChat.values()).allSatisfy(stats -> {
+      assertThat(stats.getTotalQuestions()).isEqualTo(QUESTIONS);
+      assertThat(stats.getCorrectAnswersCount()).isEqualTo(QUESTIONS);
+    });
+    assertThat(threadsByChat.values()).allSatisfy(threads -> assertThat(threads).hasSize(1));
+  }
+
+  @Test
+  void answerArrivingBeforePollIdIsKnownIsNotLost() throws Exception {
+    heldSends = new LinkedBlockingQueue<>();
+    long chatId = 7L;
+    dispatcher.dispatch(textUpdate(chatId), this::handle);
+    dispatcher.dispatch(callbackUpdate(chatId, "subject_" + SUBJECT_ID), this::handle);
+    dispatcher.dispatch(callbackUpdate(chatId, "section_1"), this::handle);
+    Object[] first = sentPolls.poll(5, TimeUnit.SECONDS);
+    assertThat(first).isNotNull();
+
+    // Javob yetib keldi va yo‘lakda qayta ishlandi, Telegram esa hali poll ID ni qaytarmagan
+    dispatcher.dispatch(pollAnswerUpdate(chatId, (String) first[1], 0), this::handle);
+    awaitLane(chatId);
+    assertThat(sessionStore.get(chatId).getCorrectAnswersCount()).isZero();
+
+    // Endi yuborish yakunlandi: saqlab qo‘yilgan javob hisobga olinadi va keyingi savol yuboriladi
+    while (!heldSends.isEmpty()) {
+      heldSends.poll().run();
+    }
+    awaitLane(chatId);
+    assertThat(sessionStore.get(chatId).getCorrectAnswersCount()).isEqualTo(1);
+    assertThat(sentPolls.poll(5, TimeUnit.SECONDS)).isNotNull();
+    assertThat(threadsByChat.get(chatId)).hasSize(1);
+  }
+
+  @Test
+  void followUpFromIoThreadDoesNotBlockOnFullLane() throws Exception {
+    UpdateDispatcher single = new UpdateDispatcher(1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      // Yagona o‘rin band: keyingi dispatch kutardi, ichki vazifa esa darhol navbatga tushishi kerak
+      single.dispatch(textUpdate(1L), update -> {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      CountDownLatch ran = new CountDownLatch(1);
+      CompletableFuture.runAsync(() -> single.execute(2L, ran::countDown), telegramIo).get(1, TimeUnit.SECONDS);
+
+      release.countDown();
+      assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      release.countDown();
+      single.shutdown();
+    }
+  }
+
+  @Test
+  void failedPollSendOffersResume() throws Exception {
+    failPolls = true;
+    long chatId = 9L;
+    dispatcher.dispatch(textUpdate(chatId), this::handle);
+    dispatcher.dispatch(callbackUpdate(chatId, "subject_" + SUBJECT_ID), this::handle);
+    dispatcher.dispatch(callbackUpdate(chatId, "section_1"), this::handle);
+
+    // Foydalanuvchiga jim qolmasdan davom ettirish tugmasi yuboriladi
+    SendMessage resume = null;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (resume == null && System.nanoTime() < deadline) {
+      SendMessage message = sentMessages.poll(100, TimeUnit.MILLISECONDS);
+      if (message != null && message.getReplyMarkup() instanceof InlineKeyboardMarkup markup
+          && QuizManager.RESUME_CALLBACK.equals(markup.getKeyboard().get(0).get(0).getCallbackData())) {
+        resume = message;
+      }
+    }
+    assertThat(resume).isNotNull();
+    assertThat(sentPolls).isEmpty();
+
+    failPolls = false;
+    dispatcher.dispatch(callbackUpdate(chatId, QuizManager.RESUME_CALLBACK), this::handle);
+    Object[] sent = sentPolls.poll(5, TimeUnit.SECONDS);
+    assertThat(sent).isNotNull();
+    dispatcher.dispatch(pollAnswerUpdate(chatId, (String) sent[1], 0), this::handle);
+    assertThat(sentPolls.poll(5, TimeUnit.SECONDS)).isNotNull();
+    awaitLane(chatId);
+    assertThat(sessionStore.get(chatId).getCorrectAnswersCount()).isEqualTo(1);
+  }
+
+  // Yo‘lakdagi barcha oldingi vazifalar bajarilguncha kutadi
+  private void awaitLane(long chatId) throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    dispatcher.execute(chatId, latch::countDown);
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private void recordThread(long chatId) {
+    threadsByChat.computeIfAbsent(chatId, key -> ConcurrentHashMap.newKeySet())
+        .add(Thread.currentThread().getName());
+  }
+
+  private void handle(Update update) {
+    long chatId = UpdateDispatcher.chatKey(update);
+    recordThread(chatId);
+    if (update.hasMessage()) {
+      quizManager.startQuiz(chatId);
+    } else if (update.hasCallbackQuery()) {
+      quizManager.processCallbackQuery(chatId, update.getCallbackQuery().getData());
+    } else if (update.hasPollAnswer()) {
+      quizManager.processPollAnswer(chatId, update.getPollAnswer().getPollId(),
+          update.getPollAnswer().getOptionIds().get(0));
+    }
+  }
+
+  private static Update textUpdate(long chatId) {
+    Message message = new Message();
+    message.setChat(new Chat(chatId, "private"));
+    message.setText("/quiz");
+    Update update = new Update();
+    update.setMessage(message);
+    return update;
+  }
+
+  private static Update callbackUpdate(long chatId, String data) {
+    Message message = new Message();
+    message.setChat(new Chat(chatId, "private"));
+    CallbackQuery callbackQuery = new CallbackQuery();
+    callbackQuery.setMessage(message);
+    callbackQuery.setData(data);
+    Update update = new Update();
+    update.setCallbackQuery(callbackQuery);
+    return update;
+  }
+
+  private static Update pollAnswerUpdate(long chatId, String pollId, int option) {
+    PollAnswer pollAnswer = new PollAnswer();
+    pollAnswer.setPollId(pollId);
+    pollAnswer.setUser(new User(chatId, "user", false));
+    pollAnswer.setOptionIds(List.of(option));
+    Update update = new Update();
+    update.setPollAnswer(pollAnswer);
+    return update;
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.smart.quiz.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+// ./gradlew benchmark
+@Tag("benchmark")
+class QuizStateFootprintTest {
+
+  private static final int QUESTIONS = 1_000;
+  private static final int SESSIONS = 10_000;
+
+  @Test
+  void bytesPerActiveSession() {
+    long[] ids = new long[QUESTIONS];
+    for (int i = 0; i < QUESTIONS; i++) {
+      ids[i] = 10_000L + i;
+    }
+    SubjectSections shared = new SubjectSections(1L, ids);
+
+    long before = measure(i -> legacyState(ids));
+    long after = measure(i -> {
+      QuizState state = new QuizState();
+      state.setSubjectId(1L);
+      state.setSections(shared);
+      state.setSection(1);
+      state.setActive(true);
+      return state;
+    });
+
+    System.out.printf("%d ta savol, %d ta sessiya%n", QUESTIONS, SESSIONS);
+    System.out.printf("Oldin (Map<String, List<Long>>): %,d bayt/sessiya%n", before / SESSIONS);
+    System.out.printf("Keyin (umumiy long[] + kursor):  %,d bayt/sessiya%n", after / SESSIONS);
+    assertThat(after).isLessThan(before);
+  }
+
+  // Avvalgi createSections: har bir sessiyada "Bo‘lim N" kalitli yangi ro‘yxatlar va boxed IDlar
+  private static Object legacyState(long[] ids) {
+    Map<String, List<Long>> sections = new HashMap<>();
+    for (int start = 0, n = 1; start < ids.length; start += SubjectSections.SECTION_SIZE, n++) {
+      List<Long> section = new ArrayList<>();
+      for (int i = start; i < Math.min(start + SubjectSections.SECTION_SIZE, ids.length); i++) {
+        section.add(ids[i]);
+      }
+      sections.put("Bo‘lim " + n, section.stream().toList());
+    }
+    return new Object[]{1L, sections, "Bo‘lim 1", 0, 0, 0, true};
+  }
+
+  private static long measure(IntFunction<Object> factory) {
+    Object[] sessions = new Object[SESSIONS];
+    long base = usedHeap();
+    for (int i = 0; i < SESSIONS; i++) {
+      sessions[i] = factory.apply(i);
+    }
+    long used = usedHeap() - base;
+    assertThat(sessions[SESSIONS - 1]).isNotNull();
+    return used;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}